@@ -0,0 +1,12 @@
+package pe.edu.vallegrande.ms_infraestructura.application.services;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ExportQueryRepository.ExportEntity;
+import reactor.core.publisher.Flux;
+
+public interface IExportService {
+    Flux<DataBuffer> exportCsv(ExportEntity entity, String organizationId, Status status,
+                               DataBufferFactory bufferFactory, boolean gzip); // organizationId solo aplica si el token no tiene organización
+}
@@ -0,0 +1,10 @@
+package pe.edu.vallegrande.ms_infraestructura.application.services;
+
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.RevenueReportResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+
+public interface IRevenueReportService {
+    Mono<RevenueReportResponse> getRevenue(YearMonth from, YearMonth to);
+}
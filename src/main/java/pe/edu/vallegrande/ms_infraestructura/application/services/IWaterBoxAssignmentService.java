@@ -1,14 +1,20 @@
 package pe.edu.vallegrande.ms_infraestructura.application.services;
 
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxAssignmentRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface IWaterBoxAssignmentService {
-    Flux<WaterBoxAssignmentResponse> getAllActive();
-    Flux<WaterBoxAssignmentResponse> getAllInactive();
+    Mono<PageResponse<WaterBoxAssignmentResponse>> getAllActive(PageQuery pageQuery, FieldSelection fields);
+    Mono<PageResponse<WaterBoxAssignmentResponse>> getAllInactive(PageQuery pageQuery, FieldSelection fields);
+    Flux<WaterBoxAssignmentResponse> streamAllActive(FieldSelection fields);
+    Flux<WaterBoxAssignmentResponse> streamAllInactive(FieldSelection fields);
     Mono<WaterBoxAssignmentResponse> getById(Long id);
+    Flux<WaterBoxAssignmentResponse> getMine(FieldSelection fields); // Solo las del usuario del token
     Mono<WaterBoxAssignmentResponse> save(WaterBoxAssignmentRequest request);
     Mono<WaterBoxAssignmentResponse> update(Long id, WaterBoxAssignmentRequest request);
     Mono<Void> delete(Long id); // Soft delete
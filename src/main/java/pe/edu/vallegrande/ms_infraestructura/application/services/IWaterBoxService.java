@@ -1,15 +1,27 @@
 package pe.edu.vallegrande.ms_infraestructura.application.services;
 
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.BulkCreateResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface IWaterBoxService {
-    Flux<WaterBoxResponse> getAllActive();
-    Flux<WaterBoxResponse> getAllInactive();
+    Mono<PageResponse<WaterBoxResponse>> getAllActive(PageQuery pageQuery, FieldSelection fields);
+    Mono<PageResponse<WaterBoxResponse>> getAllInactive(PageQuery pageQuery, FieldSelection fields);
+    Flux<WaterBoxResponse> streamAllActive(FieldSelection fields);
+    Flux<WaterBoxResponse> streamAllInactive(FieldSelection fields);
     Mono<WaterBoxResponse> getById(Long id);
+    Flux<WaterBoxResponse> getMine(FieldSelection fields); // Solo las del usuario del token
+    Mono<WaterBoxHistoryResponse> getHistory(Long id); // Asignaciones y transferencias en orden
     Mono<WaterBoxResponse> save(WaterBoxRequest request);
+    Mono<BulkCreateResponse> saveAll(List<WaterBoxRequest> requests); // Alta masiva por lotes
     Mono<WaterBoxResponse> update(Long id, WaterBoxRequest request);
     Mono<Void> delete(Long id); // Soft delete
     Mono<WaterBoxResponse> restore(Long id); // Restore soft deleted
@@ -1,12 +1,17 @@
 package pe.edu.vallegrande.ms_infraestructura.application.services;
 
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxTransferRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface IWaterBoxTransferService {
-    Flux<WaterBoxTransferResponse> getAll();
+    Mono<PageResponse<WaterBoxTransferResponse>> getAll(PageQuery pageQuery, FieldSelection fields);
+    Flux<WaterBoxTransferResponse> streamAll(FieldSelection fields);
     Mono<WaterBoxTransferResponse> getById(Long id);
+    Flux<WaterBoxTransferResponse> getMine(FieldSelection fields); // Solo las del usuario del token
     Mono<WaterBoxTransferResponse> save(WaterBoxTransferRequest request);
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package pe.edu.vallegrande.ms_infraestructura.application.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.ms_infraestructura.application.services.IExportService;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ExportQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ExportQueryRepository.ExportEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.CsvDataBufferEncoder;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ReactiveJwtService;
+import reactor.core.publisher.Flux;
+
+/**
+ * Exportación CSV completa de cajas, asignaciones y transferencias.
+ * Un administrador solo exporta su organización y un token sin organización se rechaza;
+ * el parámetro organizationId filtra para SUPER_ADMIN o debe coincidir con la del token.
+ */
+@Service
+@Slf4j
+public class ExportService implements IExportService {
+
+    private final ExportQueryRepository exportQueryRepository;
+    private final ReactiveJwtService jwtService;
+    private final int rowsPerBuffer;
+
+    public ExportService(ExportQueryRepository exportQueryRepository,
+                         ReactiveJwtService jwtService,
+                         @Value("${app.export.rows-per-buffer:500}") int rowsPerBuffer) {
+        this.exportQueryRepository = exportQueryRepository;
+        this.jwtService = jwtService;
+        this.rowsPerBuffer = rowsPerBuffer;
+    }
+
+    @Override
+    public Flux<DataBuffer> exportCsv(ExportEntity entity, String organizationId, Status status,
+                                      DataBufferFactory bufferFactory, boolean gzip) {
+        if (status != null && !entity.hasStatus()) {
+            return Flux.error(new BadRequestException("Las transferencias no tienen estado; quite el filtro status."));
+        }
+        return jwtService.getCurrentUser()
+                .flatMapMany(user -> {
+                    String tokenOrganization = user.organizationScope();
+                    if (tokenOrganization != null && organizationId != null && !tokenOrganization.equals(organizationId)) {
+                        return Flux.error(new BadRequestException("No puede exportar datos de otra organización."));
+                    }
+                    String effectiveOrganization = tokenOrganization != null ? tokenOrganization : organizationId;
+                    log.info("Usuario {} exportando {} (organización: {}, estado: {}, gzip: {})",
+                            user.getUsername(), entity.path(), effectiveOrganization, status, gzip);
+                    return CsvDataBufferEncoder.encode(bufferFactory, entity.columns(),
+                            exportQueryRepository.stream(entity, effectiveOrganization, status), rowsPerBuffer, gzip);
+                });
+    }
+}
@@ -0,0 +1,97 @@
+package pe.edu.vallegrande.ms_infraestructura.application.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pe.edu.vallegrande.ms_infraestructura.application.services.IRevenueReportService;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.RevenueReportResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.RevenueQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ReactiveJwtService;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.RevenueAccumulator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Ingresos mensuales reales y proyectados por organización y tipo de caja.
+ * Las asignaciones se leen en bloques (chunk-size) y se reparten entre "parallelism"
+ * rieles; cada riel suma en su propio RevenueAccumulator y al final las sumas
+ * parciales se combinan. Con prefetch acotado solo hay unos pocos bloques en memoria
+ * a la vez, sin importar cuántas asignaciones históricas existan.
+ * RevenueReportBenchmark (src/test) lo compara con el mismo cálculo hecho con GROUP BY.
+ */
+@Service
+@Slf4j
+public class RevenueReportService implements IRevenueReportService {
+
+    private final RevenueQueryRepository revenueQueryRepository;
+    private final ReactiveJwtService jwtService;
+    private final int chunkSize;
+    private final int parallelism;
+    private final long maxMonths;
+
+    public RevenueReportService(RevenueQueryRepository revenueQueryRepository,
+                                ReactiveJwtService jwtService,
+                                @Value("${app.reports.revenue.chunk-size:1000}") int chunkSize,
+                                @Value("${app.reports.revenue.parallelism:0}") int parallelism,
+                                @Value("${app.reports.revenue.max-months:120}") long maxMonths) {
+        this.revenueQueryRepository = revenueQueryRepository;
+        this.jwtService = jwtService;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxMonths = maxMonths;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Mono<RevenueReportResponse> getRevenue(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            return Mono.error(new BadRequestException("El mes inicial no puede ser posterior al mes final."));
+        }
+        if (ChronoUnit.MONTHS.between(from, to) + 1 > maxMonths) {
+            return Mono.error(new BadRequestException("El rango del reporte no puede exceder los " + maxMonths + " meses."));
+        }
+        YearMonth current = YearMonth.now();
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} generando reporte de ingresos {} a {}",
+                        user.getUsername(), from, to))
+                .flatMap(user -> aggregate(user.organizationScope(), from, to, current))
+                .map(accumulator -> toResponse(accumulator, from, to));
+    }
+
+    /**
+     * Agregación en paralelo por bloques; sin organización suma todas
+     */
+    Mono<RevenueAccumulator> aggregate(String organizationId, YearMonth from, YearMonth to, YearMonth current) {
+        return revenueQueryRepository.streamAssignments(organizationId, from, to)
+                .buffer(chunkSize)
+                .parallel(parallelism, 1)
+                .runOn(Schedulers.parallel(), 1)
+                .reduce(() -> new RevenueAccumulator(from, to, current), this::addChunk)
+                .reduce(RevenueAccumulator::merge)
+                .defaultIfEmpty(new RevenueAccumulator(from, to, current));
+    }
+
+    private RevenueAccumulator addChunk(RevenueAccumulator accumulator, List<RevenueQueryRepository.AssignmentRow> chunk) {
+        for (RevenueQueryRepository.AssignmentRow row : chunk) {
+            accumulator.add(row.organizationId(), row.boxType(), row.feeCents(), row.startDate(), row.endDate());
+        }
+        return accumulator;
+    }
+
+    private RevenueReportResponse toResponse(RevenueAccumulator accumulator, YearMonth from, YearMonth to) {
+        return RevenueReportResponse.builder()
+                .from(from)
+                .to(to)
+                .totalActual(BigDecimal.valueOf(accumulator.totalActualCents(), 2))
+                .totalProjected(BigDecimal.valueOf(accumulator.totalProjectedCents(), 2))
+                .rows(accumulator.toRows())
+                .build();
+    }
+}
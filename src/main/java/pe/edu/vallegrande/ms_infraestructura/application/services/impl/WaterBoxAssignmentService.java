@@ -5,173 +5,294 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxAssignmentService;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.AuditAction;
 import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
 import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBox;
 import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxAssignment;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxAssignmentRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.NotFoundException;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ListQueryRepository;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxAssignmentRepository;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.AuditTrail;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.EntityCache;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.KeyedSequencer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.OptimisticTransactions;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.OrganizationCounters;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ReactiveJwtService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WaterBoxAssignmentService implements IWaterBoxAssignmentService {
 
+    private static final String AUDIT_ENTITY = "water_box_assignments";
+
     private final WaterBoxAssignmentRepository waterBoxAssignmentRepository;
     private final WaterBoxRepository waterBoxRepository;
+    private final ListQueryRepository listQueryRepository;
     private final ReactiveJwtService jwtService;
+    private final OptimisticTransactions optimisticTransactions;
+    private final KeyedSequencer keyedSequencer;
+    private final EntityCache<WaterBoxAssignmentResponse> waterBoxAssignmentCache;
+    private final EntityCache<WaterBoxResponse> waterBoxCache;
+    private final EntityCache<WaterBoxHistoryResponse> waterBoxHistoryCache;
+    private final OrganizationCounters organizationCounters;
+    private final AuditTrail auditTrail;
+    private final ChangeVersionRegistry changeVersionRegistry;
 
     @Override
     @Transactional(readOnly = true)
-    public Flux<WaterBoxAssignmentResponse> getAllActive() {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando asignaciones activas", userInfo.getUsername()))
-                .flatMapMany(userInfo -> waterBoxAssignmentRepository.findByStatus(Status.ACTIVE))
-                .map(this::toResponse)
-                .doOnNext(response -> log.debug("Asignación activa encontrada: {}", response.getId()));
+    public Mono<PageResponse<WaterBoxAssignmentResponse>> getAllActive(PageQuery pageQuery, FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando asignaciones activas", user.getUsername()))
+                .flatMap(user -> findPage(user.organizationScope(), Status.ACTIVE, fields, pageQuery))
+                .doOnNext(page -> log.debug("Página de asignaciones activas con {} elementos", page.getSize()));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Flux<WaterBoxAssignmentResponse> getAllInactive() {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando asignaciones inactivas", userInfo.getUsername()))
-                .flatMapMany(userInfo -> waterBoxAssignmentRepository.findByStatus(Status.INACTIVE))
-                .map(this::toResponse)
-                .doOnNext(response -> log.debug("Asignación inactiva encontrada: {}", response.getId()));
+    public Mono<PageResponse<WaterBoxAssignmentResponse>> getAllInactive(PageQuery pageQuery, FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando asignaciones inactivas", user.getUsername()))
+                .flatMap(user -> findPage(user.organizationScope(), Status.INACTIVE, fields, pageQuery))
+                .doOnNext(page -> log.debug("Página de asignaciones inactivas con {} elementos", page.getSize()));
+    }
+
+    @Override
+    public Flux<WaterBoxAssignmentResponse> streamAllActive(FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando asignaciones activas en streaming", user.getUsername()))
+                .flatMapMany(user -> listQueryRepository.streamAssignments(user.organizationScope(), Status.ACTIVE, fields));
+    }
+
+    @Override
+    public Flux<WaterBoxAssignmentResponse> streamAllInactive(FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando asignaciones inactivas en streaming", user.getUsername()))
+                .flatMapMany(user -> listQueryRepository.streamAssignments(user.organizationScope(), Status.INACTIVE, fields));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Mono<WaterBoxAssignmentResponse> getById(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando asignación con ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxAssignmentRepository.findById(id))
+        return waterBoxAssignmentCache.get(id, key -> waterBoxAssignmentRepository.findById(key).map(this::toResponse))
                 .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada.")))
-                .map(this::toResponse)
                 .doOnNext(response -> log.debug("Asignación encontrada: {}", response.getId()));
     }
 
     @Override
-    @Transactional
+    public Flux<WaterBoxAssignmentResponse> getMine(FieldSelection fields) {
+        return jwtService.getCurrentUserId()
+                .doOnNext(userId -> log.info("Usuario {} consultando sus asignaciones", userId))
+                .flatMapMany(userId -> listQueryRepository.userAssignments(userId, fields));
+    }
+
+    @Override
     public Mono<WaterBoxAssignmentResponse> save(WaterBoxAssignmentRequest request) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} creando nueva asignación para WaterBox ID: {}", userInfo.getUsername(), request.getWaterBoxId()))
-                .flatMap(userInfo -> waterBoxRepository.findById(request.getWaterBoxId()))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + request.getWaterBoxId() + " no encontrada.")))
-                .flatMap(waterBox -> {
-                    if (waterBox.getStatus().equals(Status.INACTIVE)) {
-                        return Mono.error(new BadRequestException("No se puede asignar a una WaterBox inactiva."));
-                    }
-                    
-                    WaterBoxAssignment assignment = toEntity(request);
-                    assignment.setStatus(Status.ACTIVE);
-                    assignment.setCreatedAt(LocalDateTime.now());
-                    
-                    return waterBoxAssignmentRepository.save(assignment)
-                            .flatMap(savedAssignment -> {
-                                // Actualizar la WaterBox con la nueva asignación actual
-                                waterBox.setCurrentAssignmentId(savedAssignment.getId());
-                                return waterBoxRepository.save(waterBox)
-                                        .thenReturn(savedAssignment);
-                            });
-                })
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Asignación creada exitosamente: {}", response.getId()));
+        return keyedSequencer.submit(request.getWaterBoxId(), optimisticTransactions.run(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} creando nueva asignación para WaterBox ID: {}", user.getUsername(), request.getWaterBoxId()))
+                    .flatMap(user -> waterBoxRepository.findById(request.getWaterBoxId()))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + request.getWaterBoxId() + " no encontrada.")))
+                    .flatMap(waterBox -> {
+                        if (waterBox.getStatus().equals(Status.INACTIVE)) {
+                            return Mono.error(new BadRequestException("No se puede asignar a una WaterBox inactiva."));
+                        }
+                        
+                        WaterBoxAssignment assignment = toEntity(request);
+                        assignment.setStatus(Status.ACTIVE);
+                        assignment.setCreatedAt(LocalDateTime.now());
+                        
+                        return waterBoxAssignmentRepository.save(assignment)
+                                .flatMap(savedAssignment -> {
+                                    // Actualizar la WaterBox con la nueva asignación actual
+                                    waterBox.setCurrentAssignmentId(savedAssignment.getId());
+                                    return waterBoxRepository.save(waterBox)
+                                            .then(waterBoxCache.evict(waterBox.getId()))
+                                            .then(waterBoxHistoryCache.evict(waterBox.getId()))
+                                            .then(organizationCounters.afterCommit(() ->
+                                                    organizationCounters.assignmentActivated(waterBox.getOrganizationId(), savedAssignment.getMonthlyFee())))
+                                            .then(changeVersionRegistry.bumpAfterCommit(waterBox.getOrganizationId(), ChangeEntity.ASSIGNMENTS, ChangeEntity.WATER_BOXES))
+                                            .thenReturn(savedAssignment);
+                                });
+                    })
+                    .map(this::toResponse)
+                    .flatMap(response -> auditTrail.record(AuditAction.CREATE, AUDIT_ENTITY, response.getId(), null, response).thenReturn(response))
+                    .doOnNext(response -> log.info("Asignación creada exitosamente: {}", response.getId()))
+        ));
     }
 
     @Override
-    @Transactional
     public Mono<WaterBoxAssignmentResponse> update(Long id, WaterBoxAssignmentRequest request) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} actualizando asignación ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxAssignmentRepository.findById(id))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada para actualizar.")))
-                .flatMap(existingAssignment -> 
-                    waterBoxRepository.findById(request.getWaterBoxId())
-                            .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + request.getWaterBoxId() + " no encontrada.")))
-                            .map(waterBox -> {
-                                existingAssignment.setWaterBoxId(request.getWaterBoxId());
-                                existingAssignment.setUserId(request.getUserId());
-                                existingAssignment.setStartDate(request.getStartDate());
-                                existingAssignment.setMonthlyFee(request.getMonthlyFee());
-                                return existingAssignment;
-                            })
-                )
-                .flatMap(waterBoxAssignmentRepository::save)
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Asignación actualizada exitosamente: {}", response.getId()));
+        return optimisticTransactions.runWithRetry(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} actualizando asignación ID: {}", user.getUsername(), id))
+                    .flatMap(user -> waterBoxAssignmentRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada para actualizar.")))
+                    .flatMap(existingAssignment -> 
+                        waterBoxRepository.findById(request.getWaterBoxId())
+                                .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + request.getWaterBoxId() + " no encontrada.")))
+                                .flatMap(waterBox -> {
+                                    WaterBoxAssignmentResponse before = toResponse(existingAssignment);
+                                    Long oldWaterBoxId = existingAssignment.getWaterBoxId();
+                                    BigDecimal oldMonthlyFee = existingAssignment.getMonthlyFee();
+                                    existingAssignment.setWaterBoxId(request.getWaterBoxId());
+                                    existingAssignment.setUserId(request.getUserId());
+                                    existingAssignment.setStartDate(request.getStartDate());
+                                    existingAssignment.setMonthlyFee(request.getMonthlyFee());
+                                    return waterBoxAssignmentRepository.save(existingAssignment)
+                                            .flatMap(saved -> organizationCounters.afterCommit(() ->
+                                                    countUpdate(saved, oldWaterBoxId, oldMonthlyFee, waterBox)).thenReturn(saved))
+                                            // Si cambió de caja, la organización anterior no se conoce aquí: sube la versión de todas
+                                            .flatMap(saved -> changeVersionRegistry.bumpAfterCommit(
+                                                    Objects.equals(oldWaterBoxId, saved.getWaterBoxId()) ? waterBox.getOrganizationId() : null,
+                                                    ChangeEntity.ASSIGNMENTS).thenReturn(saved))
+                                            .flatMap(saved -> auditTrail.record(AuditAction.UPDATE, AUDIT_ENTITY, saved.getId(), before, toResponse(saved)).thenReturn(saved))
+                                            .flatMap(saved -> waterBoxHistoryCache.evict(oldWaterBoxId, saved.getWaterBoxId()).thenReturn(saved));
+                                })
+                    )
+                    .flatMap(saved -> waterBoxAssignmentCache.evict(saved.getId()).thenReturn(saved))
+                    .map(this::toResponse)
+                    .doOnNext(response -> log.info("Asignación actualizada exitosamente: {}", response.getId()))
+        );
     }
 
     @Override
-    @Transactional
     public Mono<Void> delete(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} eliminando asignación ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxAssignmentRepository.findById(id))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada para eliminación.")))
-                .flatMap(assignment -> {
-                    if (assignment.getStatus().equals(Status.INACTIVE)) {
-                        return Mono.error(new BadRequestException("WaterBoxAssignment con ID " + id + " ya está inactiva."));
-                    }
-                    
-                    // Si esta asignación es la current_assignment_id de una WaterBox, desvincularla
-                    return waterBoxRepository.findByCurrentAssignmentId(assignment.getId())
-                            .flatMap(waterBox -> {
-                                waterBox.setCurrentAssignmentId(null);
-                                return waterBoxRepository.save(waterBox);
-                            })
-                            .then(Mono.fromCallable(() -> {
-                                assignment.setStatus(Status.INACTIVE);
-                                assignment.setEndDate(LocalDateTime.now());
-                                return assignment;
-                            }))
-                            .flatMap(waterBoxAssignmentRepository::save);
-                })
-                .then()
-                .doOnSuccess(unused -> log.info("Asignación ID: {} eliminada exitosamente", id));
+        return sequencedByAssignment(id, optimisticTransactions.runWithRetry(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} eliminando asignación ID: {}", user.getUsername(), id))
+                    .flatMap(user -> waterBoxAssignmentRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada para eliminación.")))
+                    .flatMap(assignment -> {
+                        if (assignment.getStatus().equals(Status.INACTIVE)) {
+                            return Mono.error(new BadRequestException("WaterBoxAssignment con ID " + id + " ya está inactiva."));
+                        }
+                        
+                        WaterBoxAssignmentResponse before = toResponse(assignment);
+                        // Si esta asignación es la current_assignment_id de una WaterBox, desvincularla
+                        return waterBoxRepository.findByCurrentAssignmentId(assignment.getId())
+                                .flatMap(waterBox -> {
+                                    waterBox.setCurrentAssignmentId(null);
+                                    return waterBoxRepository.save(waterBox)
+                                            .then(waterBoxCache.evict(waterBox.getId()));
+                                })
+                                .then(Mono.fromCallable(() -> {
+                                    assignment.setStatus(Status.INACTIVE);
+                                    assignment.setEndDate(LocalDateTime.now());
+                                    return assignment;
+                                }))
+                                .flatMap(waterBoxAssignmentRepository::save)
+                                .flatMap(saved -> waterBoxAssignmentCache.evict(saved.getId())
+                                        .then(waterBoxHistoryCache.evict(saved.getWaterBoxId()))
+                                        .thenReturn(saved))
+                                .flatMap(saved -> auditTrail.record(AuditAction.DELETE, AUDIT_ENTITY, saved.getId(), before, toResponse(saved)).thenReturn(saved))
+                                .flatMap(saved -> waterBoxRepository.findById(saved.getWaterBoxId())
+                                        .flatMap(waterBox -> organizationCounters.afterCommit(() ->
+                                                organizationCounters.assignmentDeactivated(waterBox.getOrganizationId(), saved.getMonthlyFee()))
+                                                .then(changeVersionRegistry.bumpAfterCommit(waterBox.getOrganizationId(), ChangeEntity.ASSIGNMENTS, ChangeEntity.WATER_BOXES))));
+                    })
+                    .then()
+                    .doOnSuccess(unused -> log.info("Asignación ID: {} eliminada exitosamente", id))
+        ));
     }
 
     @Override
-    @Transactional
     public Mono<WaterBoxAssignmentResponse> restore(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} restaurando asignación ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxAssignmentRepository.findById(id))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada para restauración.")))
-                .flatMap(assignment -> {
-                    if (assignment.getStatus().equals(Status.ACTIVE)) {
-                        return Mono.error(new BadRequestException("WaterBoxAssignment con ID " + id + " ya está activa."));
-                    }
-                    
-                    assignment.setStatus(Status.ACTIVE);
-                    assignment.setEndDate(null);
-                    
-                    return waterBoxAssignmentRepository.save(assignment)
-                            .flatMap(restoredAssignment -> 
-                                waterBoxRepository.findById(restoredAssignment.getWaterBoxId())
-                                        .flatMap(waterBox -> {
-                                            // Solo actualiza current_assignment_id si la WaterBox no tiene otra asignación activa
-                                            if (waterBox.getCurrentAssignmentId() == null) {
-                                                waterBox.setCurrentAssignmentId(restoredAssignment.getId());
-                                                return waterBoxRepository.save(waterBox)
-                                                        .thenReturn(restoredAssignment);
-                                            }
-                                            return Mono.just(restoredAssignment);
-                                        })
-                                        .switchIfEmpty(Mono.just(restoredAssignment))
-                            );
-                })
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Asignación restaurada exitosamente: {}", response.getId()));
+        return sequencedByAssignment(id, optimisticTransactions.runWithRetry(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} restaurando asignación ID: {}", user.getUsername(), id))
+                    .flatMap(user -> waterBoxAssignmentRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxAssignment con ID " + id + " no encontrada para restauración.")))
+                    .flatMap(assignment -> {
+                        if (assignment.getStatus().equals(Status.ACTIVE)) {
+                            return Mono.error(new BadRequestException("WaterBoxAssignment con ID " + id + " ya está activa."));
+                        }
+                        
+                        WaterBoxAssignmentResponse before = toResponse(assignment);
+                        assignment.setStatus(Status.ACTIVE);
+                        assignment.setEndDate(null);
+                        
+                        return waterBoxAssignmentRepository.save(assignment)
+                                .flatMap(restoredAssignment -> waterBoxAssignmentCache.evict(restoredAssignment.getId())
+                                        .then(waterBoxHistoryCache.evict(restoredAssignment.getWaterBoxId()))
+                                        .thenReturn(restoredAssignment))
+                                .flatMap(restoredAssignment -> auditTrail.record(AuditAction.RESTORE, AUDIT_ENTITY, restoredAssignment.getId(),
+                                        before, toResponse(restoredAssignment)).thenReturn(restoredAssignment))
+                                .flatMap(restoredAssignment -> 
+                                    waterBoxRepository.findById(restoredAssignment.getWaterBoxId())
+                                            .flatMap(waterBox -> organizationCounters.afterCommit(() ->
+                                                            organizationCounters.assignmentActivated(waterBox.getOrganizationId(), restoredAssignment.getMonthlyFee()))
+                                                    .then(changeVersionRegistry.bumpAfterCommit(waterBox.getOrganizationId(), ChangeEntity.ASSIGNMENTS, ChangeEntity.WATER_BOXES))
+                                                    .thenReturn(waterBox))
+                                            .flatMap(waterBox -> {
+                                                // Solo actualiza current_assignment_id si la WaterBox no tiene otra asignación activa
+                                                if (waterBox.getCurrentAssignmentId() == null) {
+                                                    waterBox.setCurrentAssignmentId(restoredAssignment.getId());
+                                                    return waterBoxRepository.save(waterBox)
+                                                            .then(waterBoxCache.evict(waterBox.getId()))
+                                                            .thenReturn(restoredAssignment);
+                                                }
+                                                return Mono.just(restoredAssignment);
+                                            })
+                                            .switchIfEmpty(Mono.just(restoredAssignment))
+                                );
+                    })
+                    .map(this::toResponse)
+                    .doOnNext(response -> log.info("Asignación restaurada exitosamente: {}", response.getId()))
+        ));
+    }
+
+    /**
+     * Solo una asignación activa aporta al resumen. Si cambió de caja, la organización
+     * anterior no se conoce aquí y se pide una reconciliación completa.
+     */
+    private void countUpdate(WaterBoxAssignment saved, Long oldWaterBoxId, BigDecimal oldMonthlyFee, WaterBox waterBox) {
+        if (!Status.ACTIVE.equals(saved.getStatus())) {
+            return;
+        }
+        if (!Objects.equals(oldWaterBoxId, saved.getWaterBoxId())) {
+            organizationCounters.reconcile();
+            return;
+        }
+        organizationCounters.assignmentDeactivated(waterBox.getOrganizationId(), oldMonthlyFee);
+        organizationCounters.assignmentActivated(waterBox.getOrganizationId(), saved.getMonthlyFee());
+    }
+
+    /**
+     * Encola la operación en la cola de la caja a la que pertenece la asignación;
+     * si la asignación no existe se ejecuta directamente (y responde 404)
+     */
+    private <T> Mono<T> sequencedByAssignment(Long assignmentId, Mono<T> work) {
+        return waterBoxAssignmentRepository.findById(assignmentId)
+                .map(assignment -> Optional.of(assignment.getWaterBoxId()))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(waterBoxId -> waterBoxId.isPresent() ? keyedSequencer.submit(waterBoxId.get(), work) : work);
+    }
+
+    /**
+     * La consulta se limita en SQL a la JASS del token (CurrentUser.organizationScope)
+     */
+    private Mono<PageResponse<WaterBoxAssignmentResponse>> findPage(String organizationId, Status status, FieldSelection fields, PageQuery pageQuery) {
+        return listQueryRepository.pageAssignments(organizationId, status, fields, pageQuery)
+                .collectList()
+                .map(items -> PageResponse.of(items, pageQuery, WaterBoxAssignmentResponse::getId));
     }
 
     private WaterBoxAssignment toEntity(WaterBoxAssignmentRequest request) {
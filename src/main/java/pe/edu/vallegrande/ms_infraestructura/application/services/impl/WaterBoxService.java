@@ -1,137 +1,413 @@
 package pe.edu.vallegrande.ms_infraestructura.application.services.impl;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxService;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.AuditAction;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
 import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
 import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBox;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.BulkCreateResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.BulkItemResult;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.NotFoundException;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ListQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxBulkRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxHistoryRepository;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.AuditTrail;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.EntityCache;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.KeyedSequencer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.OptimisticTransactions;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.OrganizationCounters;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ReactiveJwtService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WaterBoxService implements IWaterBoxService {
 
+    private static final String AUDIT_ENTITY = "water_boxes";
+
     private final WaterBoxRepository waterBoxRepository;
+    private final ListQueryRepository listQueryRepository;
     private final ReactiveJwtService jwtService;
+    private final OptimisticTransactions optimisticTransactions;
+    private final KeyedSequencer keyedSequencer;
+    private final EntityCache<WaterBoxResponse> waterBoxCache;
+    private final WaterBoxBulkRepository waterBoxBulkRepository;
+    private final Validator validator;
+    private final OrganizationCounters organizationCounters;
+    private final AuditTrail auditTrail;
+    private final WaterBoxHistoryRepository waterBoxHistoryRepository;
+    private final EntityCache<WaterBoxHistoryResponse> waterBoxHistoryCache;
+    private final ChangeVersionRegistry changeVersionRegistry;
+    private final SummaryQueryRepository summaryQueryRepository;
+
+    @Value("${app.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${app.bulk.max-items:5000}")
+    private int bulkMaxItems;
 
     @Override
     @Transactional(readOnly = true)
-    public Flux<WaterBoxResponse> getAllActive() {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando cajas de agua activas", userInfo.getUsername()))
-                .flatMapMany(userInfo -> waterBoxRepository.findByStatus(Status.ACTIVE))
-                .map(this::toResponse)
-                .doOnNext(response -> log.debug("Caja de agua activa encontrada: {}", response.getBoxCode()));
+    public Mono<PageResponse<WaterBoxResponse>> getAllActive(PageQuery pageQuery, FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando cajas de agua activas", user.getUsername()))
+                .flatMap(user -> findPage(user.organizationScope(), Status.ACTIVE, fields, pageQuery))
+                .doOnNext(page -> log.debug("Página de cajas de agua activas con {} elementos", page.getSize()));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Flux<WaterBoxResponse> getAllInactive() {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando cajas de agua inactivas", userInfo.getUsername()))
-                .flatMapMany(userInfo -> waterBoxRepository.findByStatus(Status.INACTIVE))
-                .map(this::toResponse)
-                .doOnNext(response -> log.debug("Caja de agua inactiva encontrada: {}", response.getBoxCode()));
+    public Mono<PageResponse<WaterBoxResponse>> getAllInactive(PageQuery pageQuery, FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando cajas de agua inactivas", user.getUsername()))
+                .flatMap(user -> findPage(user.organizationScope(), Status.INACTIVE, fields, pageQuery))
+                .doOnNext(page -> log.debug("Página de cajas de agua inactivas con {} elementos", page.getSize()));
+    }
+
+    @Override
+    public Flux<WaterBoxResponse> streamAllActive(FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando cajas de agua activas en streaming", user.getUsername()))
+                .flatMapMany(user -> listQueryRepository.streamWaterBoxes(user.organizationScope(), Status.ACTIVE, fields));
+    }
+
+    @Override
+    public Flux<WaterBoxResponse> streamAllInactive(FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando cajas de agua inactivas en streaming", user.getUsername()))
+                .flatMapMany(user -> listQueryRepository.streamWaterBoxes(user.organizationScope(), Status.INACTIVE, fields));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Mono<WaterBoxResponse> getById(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando caja de agua con ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxRepository.findById(id))
+        return waterBoxCache.get(id, key -> waterBoxRepository.findById(key).map(this::toResponse))
                 .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada.")))
-                .map(this::toResponse)
                 .doOnNext(response -> log.debug("Caja de agua encontrada: {}", response.getBoxCode()));
     }
 
     @Override
-    @Transactional
+    public Flux<WaterBoxResponse> getMine(FieldSelection fields) {
+        return jwtService.getCurrentUserId()
+                .doOnNext(userId -> log.info("Usuario {} consultando sus cajas de agua", userId))
+                .flatMapMany(userId -> listQueryRepository.userWaterBoxes(userId, fields));
+    }
+
+    /**
+     * Una sola consulta recursiva por caja; se guarda en caché hasta que una
+     * transferencia o una escritura de asignación de la caja la invalida
+     */
+    @Override
+    public Mono<WaterBoxHistoryResponse> getHistory(Long id) {
+        return waterBoxHistoryCache.get(id, key -> waterBoxRepository.existsById(key)
+                        .filter(Boolean::booleanValue)
+                        .flatMap(exists -> waterBoxHistoryRepository.findHistory(key).collectList())
+                        .map(entries -> WaterBoxHistoryResponse.builder().waterBoxId(key).entries(entries).build()))
+                .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada.")))
+                .doOnNext(history -> log.debug("Historial de la caja de agua {} con {} pasos", id, history.getEntries().size()));
+    }
+
+    @Override
     public Mono<WaterBoxResponse> save(WaterBoxRequest request) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} creando nueva caja de agua: {}", userInfo.getUsername(), request.getBoxCode()))
-                .map(userInfo -> {
-                    WaterBox waterBox = toEntity(request);
-                    waterBox.setStatus(Status.ACTIVE);
-                    waterBox.setCreatedAt(LocalDateTime.now());
-                    return waterBox;
+        return optimisticTransactions.run(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} creando nueva caja de agua: {}", user.getUsername(), request.getBoxCode()))
+                    .map(user -> {
+                        WaterBox waterBox = toEntity(request);
+                        waterBox.setStatus(Status.ACTIVE);
+                        waterBox.setCreatedAt(LocalDateTime.now());
+                        return waterBox;
+                    })
+                    .flatMap(waterBoxRepository::save)
+                    .flatMap(saved -> organizationCounters.afterCommit(() -> organizationCounters.boxAdded(saved)).thenReturn(saved))
+                    .flatMap(saved -> changeVersionRegistry.bumpAfterCommit(saved.getOrganizationId(), ChangeEntity.WATER_BOXES).thenReturn(saved))
+                    .map(this::toResponse)
+                    .flatMap(response -> auditTrail.record(AuditAction.CREATE, AUDIT_ENTITY, response.getId(), null, response).thenReturn(response))
+                    .doOnNext(response -> log.info("Caja de agua creada exitosamente: {}", response.getBoxCode()))
+        );
+    }
+
+    /**
+     * Alta masiva: valida todo el lote antes de escribir (anotaciones del request,
+     * box_code repetido dentro del lote y box_code ya registrado) y luego inserta
+     * las cajas válidas en INSERT multi-fila de bulkChunkSize filas.
+     * Cada lote es atómico; si uno falla, solo sus elementos se reportan como rechazados.
+     */
+    @Override
+    public Mono<BulkCreateResponse> saveAll(List<WaterBoxRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return Mono.error(new BadRequestException("La lista de cajas de agua no puede estar vacía."));
+        }
+        if (requests.size() > bulkMaxItems) {
+            return Mono.error(new BadRequestException("El lote no puede exceder las " + bulkMaxItems + " cajas de agua."));
+        }
+        BulkItemResult[] results = new BulkItemResult[requests.size()];
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} creando {} cajas de agua en lote", user.getUsername(), requests.size()))
+                .flatMap(user -> {
+                    List<Integer> pending = validateBatch(requests, results);
+                    List<String> boxCodes = pending.stream().map(i -> requests.get(i).getBoxCode()).toList();
+                    return waterBoxBulkRepository.findExistingBoxCodes(boxCodes)
+                            .collect(Collectors.toSet())
+                            .flatMap(existingCodes -> {
+                                List<Integer> insertable = rejectExisting(requests, pending, existingCodes, results);
+                                LocalDateTime createdAt = LocalDateTime.now();
+                                List<List<Integer>> chunks = new ArrayList<>();
+                                for (int from = 0; from < insertable.size(); from += bulkChunkSize) {
+                                    chunks.add(insertable.subList(from, Math.min(from + bulkChunkSize, insertable.size())));
+                                }
+                                return Flux.fromIterable(chunks)
+                                        .concatMap(chunk -> insertChunk(requests, chunk, createdAt, results))
+                                        .then();
+                            });
                 })
-                .flatMap(waterBoxRepository::save)
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Caja de agua creada exitosamente: {}", response.getBoxCode()));
+                .then(Mono.fromCallable(() -> toBulkResponse(results)))
+                .doOnNext(response -> log.info("Alta masiva completada: {} creadas, {} rechazadas", response.getCreated(), response.getRejected()));
     }
 
     @Override
-    @Transactional
     public Mono<WaterBoxResponse> update(Long id, WaterBoxRequest request) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} actualizando caja de agua ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxRepository.findById(id))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada para actualizar.")))
-                .map(existingWaterBox -> {
-                    existingWaterBox.setOrganizationId(request.getOrganizationId());
-                    existingWaterBox.setBoxCode(request.getBoxCode());
-                    existingWaterBox.setBoxType(request.getBoxType());
-                    existingWaterBox.setInstallationDate(request.getInstallationDate());
-                    return existingWaterBox;
-                })
-                .flatMap(waterBoxRepository::save)
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Caja de agua actualizada exitosamente: {}", response.getBoxCode()));
+        return keyedSequencer.submit(id, optimisticTransactions.runWithRetry(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} actualizando caja de agua ID: {}", user.getUsername(), id))
+                    .flatMap(user -> waterBoxRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada para actualizar.")))
+                    .flatMap(existingWaterBox -> {
+                        WaterBoxResponse before = toResponse(existingWaterBox);
+                        String oldOrganizationId = existingWaterBox.getOrganizationId();
+                        BoxType oldBoxType = existingWaterBox.getBoxType();
+                        existingWaterBox.setOrganizationId(request.getOrganizationId());
+                        existingWaterBox.setBoxCode(request.getBoxCode());
+                        existingWaterBox.setBoxType(request.getBoxType());
+                        existingWaterBox.setInstallationDate(request.getInstallationDate());
+                        return waterBoxRepository.save(existingWaterBox)
+                                .flatMap(saved -> organizationCounters.afterCommit(() ->
+                                        organizationCounters.boxChanged(oldOrganizationId, saved.getStatus(), oldBoxType, saved)).thenReturn(saved))
+                                .flatMap(saved -> moveCounters(oldOrganizationId, saved).thenReturn(saved))
+                                .flatMap(saved -> bumpUpdate(oldOrganizationId, saved).thenReturn(saved))
+                                .flatMap(saved -> auditTrail.record(AuditAction.UPDATE, AUDIT_ENTITY, saved.getId(), before, toResponse(saved)).thenReturn(saved));
+                    })
+                    .flatMap(saved -> waterBoxCache.evict(saved.getId()).thenReturn(saved))
+                    .map(this::toResponse)
+                    .doOnNext(response -> log.info("Caja de agua actualizada exitosamente: {}", response.getBoxCode()))
+        ));
     }
 
     @Override
-    @Transactional
     public Mono<Void> delete(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} eliminando caja de agua ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxRepository.findById(id))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada para eliminación.")))
-                .flatMap(waterBox -> {
-                    if (waterBox.getStatus().equals(Status.INACTIVE)) {
-                        return Mono.error(new BadRequestException("WaterBox con ID " + id + " ya está inactiva."));
-                    }
-                    
-                    if (waterBox.getCurrentAssignmentId() != null) {
-                        return Mono.error(new BadRequestException("WaterBox con ID " + id + " tiene una asignación activa. Desactive la asignación primero."));
-                    }
-                    
-                    waterBox.setStatus(Status.INACTIVE);
-                    return waterBoxRepository.save(waterBox);
-                })
-                .then()
-                .doOnSuccess(unused -> log.info("Caja de agua ID: {} eliminada exitosamente", id));
+        return keyedSequencer.submit(id, optimisticTransactions.runWithRetry(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} eliminando caja de agua ID: {}", user.getUsername(), id))
+                    .flatMap(user -> waterBoxRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada para eliminación.")))
+                    .flatMap(waterBox -> {
+                        if (waterBox.getStatus().equals(Status.INACTIVE)) {
+                            return Mono.error(new BadRequestException("WaterBox con ID " + id + " ya está inactiva."));
+                        }
+                        
+                        if (waterBox.getCurrentAssignmentId() != null) {
+                            return Mono.error(new BadRequestException("WaterBox con ID " + id + " tiene una asignación activa. Desactive la asignación primero."));
+                        }
+                        
+                        WaterBoxResponse before = toResponse(waterBox);
+                        waterBox.setStatus(Status.INACTIVE);
+                        return waterBoxRepository.save(waterBox)
+                                .flatMap(saved -> organizationCounters.afterCommit(() ->
+                                        organizationCounters.boxChanged(saved.getOrganizationId(), Status.ACTIVE, saved.getBoxType(), saved))
+                                        .then(changeVersionRegistry.bumpAfterCommit(saved.getOrganizationId(), ChangeEntity.WATER_BOXES))
+                                        .then(waterBoxCache.evict(saved.getId()))
+                                        .then(auditTrail.record(AuditAction.DELETE, AUDIT_ENTITY, saved.getId(), before, toResponse(saved))));
+                    })
+                    .then()
+                    .doOnSuccess(unused -> log.info("Caja de agua ID: {} eliminada exitosamente", id))
+        ));
     }
 
     @Override
-    @Transactional
     public Mono<WaterBoxResponse> restore(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} restaurando caja de agua ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxRepository.findById(id))
-                .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada para restauración.")))
-                .flatMap(waterBox -> {
-                    if (waterBox.getStatus().equals(Status.ACTIVE)) {
-                        return Mono.error(new BadRequestException("WaterBox con ID " + id + " ya está activa."));
-                    }
-                    
-                    waterBox.setStatus(Status.ACTIVE);
-                    return waterBoxRepository.save(waterBox);
+        return keyedSequencer.submit(id, optimisticTransactions.runWithRetry(
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} restaurando caja de agua ID: {}", user.getUsername(), id))
+                    .flatMap(user -> waterBoxRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + id + " no encontrada para restauración.")))
+                    .flatMap(waterBox -> {
+                        if (waterBox.getStatus().equals(Status.ACTIVE)) {
+                            return Mono.error(new BadRequestException("WaterBox con ID " + id + " ya está activa."));
+                        }
+                        
+                        WaterBoxResponse before = toResponse(waterBox);
+                        waterBox.setStatus(Status.ACTIVE);
+                        return waterBoxRepository.save(waterBox)
+                                .flatMap(saved -> organizationCounters.afterCommit(() ->
+                                        organizationCounters.boxChanged(saved.getOrganizationId(), Status.INACTIVE, saved.getBoxType(), saved))
+                                        .then(changeVersionRegistry.bumpAfterCommit(saved.getOrganizationId(), ChangeEntity.WATER_BOXES))
+                                        .then(waterBoxCache.evict(saved.getId()))
+                                        .then(auditTrail.record(AuditAction.RESTORE, AUDIT_ENTITY, saved.getId(), before, toResponse(saved)))
+                                        .thenReturn(saved));
+                    })
+                    .map(this::toResponse)
+                    .doOnNext(response -> log.info("Caja de agua restaurada exitosamente: {}", response.getBoxCode()))
+        ));
+    }
+
+    /**
+     * La consulta se limita en SQL a la JASS del token (CurrentUser.organizationScope)
+     */
+    private Mono<PageResponse<WaterBoxResponse>> findPage(String organizationId, Status status, FieldSelection fields, PageQuery pageQuery) {
+        return listQueryRepository.pageWaterBoxes(organizationId, status, fields, pageQuery)
+                .collectList()
+                .map(items -> PageResponse.of(items, pageQuery, WaterBoxResponse::getId));
+    }
+
+    /**
+     * Devuelve las posiciones que pasaron la validación; las demás quedan rechazadas en results
+     */
+    private List<Integer> validateBatch(List<WaterBoxRequest> requests, BulkItemResult[] results) {
+        List<Integer> valid = new ArrayList<>(requests.size());
+        Map<String, Integer> firstIndexByCode = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            WaterBoxRequest request = requests.get(i);
+            if (request == null) {
+                results[i] = rejected(i, null, List.of("El elemento no puede ser nulo."));
+                continue;
+            }
+            List<String> errors = validator.validate(request).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (request.getBoxCode() != null) {
+                Integer firstIndex = firstIndexByCode.putIfAbsent(request.getBoxCode(), i);
+                if (firstIndex != null) {
+                    errors.add("El código de la caja está repetido en el lote (posición " + firstIndex + ").");
+                }
+            }
+            if (errors.isEmpty()) {
+                valid.add(i);
+            } else {
+                results[i] = rejected(i, request.getBoxCode(), errors);
+            }
+        }
+        return valid;
+    }
+
+    private List<Integer> rejectExisting(List<WaterBoxRequest> requests, List<Integer> pending,
+                                         Set<String> existingCodes, BulkItemResult[] results) {
+        List<Integer> insertable = new ArrayList<>(pending.size());
+        for (Integer i : pending) {
+            String boxCode = requests.get(i).getBoxCode();
+            if (existingCodes.contains(boxCode)) {
+                results[i] = rejected(i, boxCode, List.of("El código de la caja ya está registrado."));
+            } else {
+                insertable.add(i);
+            }
+        }
+        return insertable;
+    }
+
+    /**
+     * Si la caja cambió de organización, sus asignaciones activas y las transferencias
+     * del mes pasan a contarse en la nueva (leídas en la misma transacción que el cambio)
+     */
+    private Mono<Void> moveCounters(String oldOrganizationId, WaterBox saved) {
+        if (Objects.equals(oldOrganizationId, saved.getOrganizationId())) {
+            return Mono.empty();
+        }
+        return summaryQueryRepository.boxTotals(saved.getId(), YearMonth.now().atDay(1).atStartOfDay())
+                .flatMap(totals -> organizationCounters.afterCommit(() ->
+                        organizationCounters.boxMoved(oldOrganizationId, saved.getOrganizationId(), totals)));
+    }
+
+    /**
+     * Si la caja cambió de organización, sus asignaciones y transferencias también
+     * cambian de listado en ambas organizaciones
+     */
+    private Mono<Void> bumpUpdate(String oldOrganizationId, WaterBox saved) {
+        if (Objects.equals(oldOrganizationId, saved.getOrganizationId())) {
+            return changeVersionRegistry.bumpAfterCommit(saved.getOrganizationId(), ChangeEntity.WATER_BOXES);
+        }
+        return changeVersionRegistry.bumpAfterCommit(oldOrganizationId, ChangeEntity.values())
+                .then(changeVersionRegistry.bumpAfterCommit(saved.getOrganizationId(), ChangeEntity.values()));
+    }
+
+    private Mono<Void> insertChunk(List<WaterBoxRequest> requests, List<Integer> chunk,
+                                   LocalDateTime createdAt, BulkItemResult[] results) {
+        List<WaterBox> waterBoxes = chunk.stream().map(i -> toEntity(requests.get(i))).toList();
+        return waterBoxBulkRepository.insertAll(waterBoxes, createdAt)
+                .collectMap(WaterBox::getBoxCode)
+                .doOnNext(saved -> saved.values().forEach(organizationCounters::boxAdded))
+                .doOnNext(saved -> saved.values().stream().map(WaterBox::getOrganizationId).distinct()
+                        .forEach(organizationId -> changeVersionRegistry.bump(organizationId, ChangeEntity.WATER_BOXES)))
+                .doOnNext(saved -> chunk.forEach(i -> {
+                    WaterBox waterBox = saved.get(requests.get(i).getBoxCode());
+                    results[i] = BulkItemResult.builder()
+                            .index(i)
+                            .boxCode(waterBox.getBoxCode())
+                            .created(true)
+                            .id(waterBox.getId())
+                            .build();
+                }))
+                .flatMap(saved -> Flux.fromIterable(saved.values())
+                        .concatMap(waterBox -> auditTrail.record(AuditAction.CREATE, AUDIT_ENTITY, waterBox.getId(), null, toResponse(waterBox)))
+                        .then())
+                // Un box_code registrado en paralelo por otra petición invalida solo este lote
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    log.warn("Lote de {} cajas de agua rechazado: {}", chunk.size(), e.getMessage());
+                    chunk.forEach(i -> results[i] = rejected(i, requests.get(i).getBoxCode(),
+                            List.of("No se pudo registrar el lote: el código de una de sus cajas ya está registrado.")));
+                    return Mono.empty();
                 })
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Caja de agua restaurada exitosamente: {}", response.getBoxCode()));
+                .then();
+    }
+
+    private BulkItemResult rejected(int index, String boxCode, List<String> errors) {
+        return BulkItemResult.builder()
+                .index(index)
+                .boxCode(boxCode)
+                .created(false)
+                .errors(errors)
+                .build();
+    }
+
+    private BulkCreateResponse toBulkResponse(BulkItemResult[] results) {
+        List<BulkItemResult> items = Arrays.stream(results).filter(Objects::nonNull).toList();
+        int created = (int) items.stream().filter(BulkItemResult::isCreated).count();
+        return BulkCreateResponse.builder()
+                .total(results.length)
+                .created(created)
+                .rejected(results.length - created)
+                .items(items)
+                .build();
     }
 
     private WaterBox toEntity(WaterBoxRequest request) {
@@ -5,17 +5,27 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxTransferService;
-import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
-import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBox;
-import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxAssignment;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.AuditAction;
 import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxTransfer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxTransferRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.NotFoundException;
-import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxAssignmentRepository;
-import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ListQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxTransferCommandRepository;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.WaterBoxTransferRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.AuditTrail;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.EntityCache;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.KeyedSequencer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.OrganizationCounters;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ReactiveJwtService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -27,99 +37,101 @@ import java.time.LocalDateTime;
 @Slf4j
 public class WaterBoxTransferService implements IWaterBoxTransferService {
 
+    private static final String AUDIT_ENTITY = "water_box_transfers";
+
     private final WaterBoxTransferRepository waterBoxTransferRepository;
-    private final WaterBoxAssignmentRepository waterBoxAssignmentRepository;
-    private final WaterBoxRepository waterBoxRepository;
+    private final WaterBoxTransferCommandRepository waterBoxTransferCommandRepository;
+    private final ListQueryRepository listQueryRepository;
     private final ReactiveJwtService jwtService;
+    private final KeyedSequencer keyedSequencer;
+    private final EntityCache<WaterBoxTransferResponse> waterBoxTransferCache;
+    private final EntityCache<WaterBoxAssignmentResponse> waterBoxAssignmentCache;
+    private final EntityCache<WaterBoxResponse> waterBoxCache;
+    private final EntityCache<WaterBoxHistoryResponse> waterBoxHistoryCache;
+    private final OrganizationCounters organizationCounters;
+    private final AuditTrail auditTrail;
+    private final ChangeVersionRegistry changeVersionRegistry;
 
     @Override
     @Transactional(readOnly = true)
-    public Flux<WaterBoxTransferResponse> getAll() {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando todas las transferencias", userInfo.getUsername()))
-                .flatMapMany(userInfo -> waterBoxTransferRepository.findAll())
-                .map(this::toResponse)
-                .doOnNext(response -> log.debug("Transferencia encontrada: {}", response.getId()));
+    public Mono<PageResponse<WaterBoxTransferResponse>> getAll(PageQuery pageQuery, FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando todas las transferencias", user.getUsername()))
+                .flatMap(user -> listQueryRepository.pageTransfers(user.organizationScope(), fields, pageQuery)
+                        .collectList())
+                .map(rows -> PageResponse.of(rows, pageQuery, WaterBoxTransferResponse::getId))
+                .doOnNext(page -> log.debug("Página de transferencias con {} elementos", page.getSize()));
+    }
+
+    @Override
+    public Flux<WaterBoxTransferResponse> streamAll(FieldSelection fields) {
+        return jwtService.getCurrentUser()
+                .doOnNext(user -> log.info("Usuario {} consultando transferencias en streaming", user.getUsername()))
+                .flatMapMany(user -> listQueryRepository.streamTransfers(user.organizationScope(), fields));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Mono<WaterBoxTransferResponse> getById(Long id) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} consultando transferencia con ID: {}", userInfo.getUsername(), id))
-                .flatMap(userInfo -> waterBoxTransferRepository.findById(id))
+        return waterBoxTransferCache.get(id, key -> waterBoxTransferRepository.findById(key).map(this::toResponse))
                 .switchIfEmpty(Mono.error(new NotFoundException("WaterBoxTransfer con ID " + id + " no encontrada.")))
-                .map(this::toResponse)
                 .doOnNext(response -> log.debug("Transferencia encontrada: {}", response.getId()));
     }
 
     @Override
-    @Transactional
+    public Flux<WaterBoxTransferResponse> getMine(FieldSelection fields) {
+        return jwtService.getCurrentUserId()
+                .doOnNext(userId -> log.info("Usuario {} consultando sus transferencias", userId))
+                .flatMapMany(userId -> listQueryRepository.userTransfers(userId, fields));
+    }
+
+    /**
+     * La transferencia se resuelve en un solo round-trip: validaciones, inserción,
+     * inactivación de la asignación antigua y cambio de current_assignment_id
+     * ocurren en una misma sentencia (ver WaterBoxTransferCommandRepository).
+     * Se encola por caja para no competir con otras escrituras de la misma caja.
+     */
+    @Override
     public Mono<WaterBoxTransferResponse> save(WaterBoxTransferRequest request) {
-        return jwtService.getCurrentUserInfo()
-                .doOnNext(userInfo -> log.info("Usuario {} creando transferencia para WaterBox ID: {}", userInfo.getUsername(), request.getWaterBoxId()))
-                .flatMap(userInfo -> 
-                    // 1. Validar que la caja de agua exista y esté activa
-                    waterBoxRepository.findById(request.getWaterBoxId())
-                            .switchIfEmpty(Mono.error(new NotFoundException("WaterBox con ID " + request.getWaterBoxId() + " no encontrada.")))
-                            .flatMap(waterBox -> {
-                                if (waterBox.getStatus().equals(Status.INACTIVE)) {
-                                    return Mono.error(new BadRequestException("No se puede transferir una WaterBox inactiva."));
-                                }
-                                
-                                // 2. Validar asignación antigua
-                                return waterBoxAssignmentRepository.findById(request.getOldAssignmentId())
-                                        .switchIfEmpty(Mono.error(new NotFoundException("Asignación antigua con ID " + request.getOldAssignmentId() + " no encontrada.")))
-                                        .flatMap(oldAssignment -> {
-                                            if (!oldAssignment.getWaterBoxId().equals(waterBox.getId())) {
-                                                return Mono.error(new BadRequestException("La asignación antigua no pertenece a la WaterBox especificada."));
-                                            }
-                                            if (oldAssignment.getStatus().equals(Status.INACTIVE)) {
-                                                return Mono.error(new BadRequestException("La asignación antigua ya está inactiva."));
-                                            }
-                                            if (waterBox.getCurrentAssignmentId() == null || !waterBox.getCurrentAssignmentId().equals(oldAssignment.getId())) {
-                                                return Mono.error(new BadRequestException("La asignación antigua proporcionada no es la asignación actual activa."));
-                                            }
-                                            
-                                            // 3. Validar nueva asignación
-                                            return waterBoxAssignmentRepository.findById(request.getNewAssignmentId())
-                                                    .switchIfEmpty(Mono.error(new NotFoundException("Nueva asignación con ID " + request.getNewAssignmentId() + " no encontrada.")))
-                                                    .flatMap(newAssignment -> {
-                                                        if (!newAssignment.getWaterBoxId().equals(waterBox.getId())) {
-                                                            return Mono.error(new BadRequestException("La nueva asignación no pertenece a la WaterBox especificada."));
-                                                        }
-                                                        if (newAssignment.getStatus().equals(Status.INACTIVE)) {
-                                                            return Mono.error(new BadRequestException("La nueva asignación está inactiva."));
-                                                        }
-                                                        if (newAssignment.getId().equals(oldAssignment.getId())) {
-                                                            return Mono.error(new BadRequestException("La asignación antigua y la nueva no pueden ser la misma."));
-                                                        }
-                                                        
-                                                        // 4. Crear la transferencia
-                                                        WaterBoxTransfer transfer = toEntity(request);
-                                                        transfer.setCreatedAt(LocalDateTime.now());
-                                                        
-                                                        return waterBoxTransferRepository.save(transfer)
-                                                                .flatMap(savedTransfer -> {
-                                                                    // 5. Actualizar asignación antigua
-                                                                    oldAssignment.setStatus(Status.INACTIVE);
-                                                                    oldAssignment.setEndDate(LocalDateTime.now());
-                                                                    oldAssignment.setTransferId(savedTransfer.getId());
-                                                                    
-                                                                    return waterBoxAssignmentRepository.save(oldAssignment)
-                                                                            .flatMap(updatedOldAssignment -> {
-                                                                                // 6. Actualizar WaterBox con nueva asignación
-                                                                                waterBox.setCurrentAssignmentId(newAssignment.getId());
-                                                                                return waterBoxRepository.save(waterBox)
-                                                                                        .thenReturn(savedTransfer);
-                                                                            });
-                                                                });
-                                                    });
-                                        });
-                            })
-                )
-                .map(this::toResponse)
-                .doOnNext(response -> log.info("Transferencia creada exitosamente: {}", response.getId()));
+        return keyedSequencer.submit(request.getWaterBoxId(),
+                jwtService.getCurrentUser()
+                    .doOnNext(user -> log.info("Usuario {} creando transferencia para WaterBox ID: {}", user.getUsername(), request.getWaterBoxId()))
+                    .flatMap(user -> {
+                        WaterBoxTransfer transfer = toEntity(request);
+                        transfer.setCreatedAt(LocalDateTime.now());
+                        return waterBoxTransferCommandRepository.transfer(transfer);
+                    })
+                    .flatMap(result -> "OK".equals(result.outcome())
+                            ? organizationCounters.afterCommit(() -> organizationCounters.transferRegistered(result.organizationId(), result.oldMonthlyFee()))
+                                    .then(changeVersionRegistry.bumpAfterCommit(result.organizationId(), ChangeEntity.values()))
+                                    .thenReturn(result.transfer())
+                            : Mono.error(toTransferError(result.outcome(), request)))
+                    .flatMap(savedTransfer -> waterBoxAssignmentCache.evict(savedTransfer.getOldAssignmentId())
+                            .then(waterBoxCache.evict(savedTransfer.getWaterBoxId()))
+                            .then(waterBoxHistoryCache.evict(savedTransfer.getWaterBoxId()))
+                            .thenReturn(savedTransfer))
+                    .map(this::toResponse)
+                    .flatMap(response -> auditTrail.record(AuditAction.TRANSFER, AUDIT_ENTITY, response.getId(), null, response).thenReturn(response))
+                    .doOnNext(response -> log.info("Transferencia creada exitosamente: {}", response.getId()))
+        );
+    }
+
+    /**
+     * Traduce la validación que falló en SQL a la excepción y mensaje de siempre
+     */
+    private RuntimeException toTransferError(String outcome, WaterBoxTransferRequest request) {
+        return switch (outcome) {
+            case "BOX_NOT_FOUND" -> new NotFoundException("WaterBox con ID " + request.getWaterBoxId() + " no encontrada.");
+            case "BOX_INACTIVE" -> new BadRequestException("No se puede transferir una WaterBox inactiva.");
+            case "OLD_NOT_FOUND" -> new NotFoundException("Asignación antigua con ID " + request.getOldAssignmentId() + " no encontrada.");
+            case "OLD_OTHER_BOX" -> new BadRequestException("La asignación antigua no pertenece a la WaterBox especificada.");
+            case "OLD_INACTIVE" -> new BadRequestException("La asignación antigua ya está inactiva.");
+            case "OLD_NOT_CURRENT" -> new BadRequestException("La asignación antigua proporcionada no es la asignación actual activa.");
+            case "NEW_NOT_FOUND" -> new NotFoundException("Nueva asignación con ID " + request.getNewAssignmentId() + " no encontrada.");
+            case "NEW_OTHER_BOX" -> new BadRequestException("La nueva asignación no pertenece a la WaterBox especificada.");
+            case "NEW_INACTIVE" -> new BadRequestException("La nueva asignación está inactiva.");
+            case "SAME_ASSIGNMENT" -> new BadRequestException("La asignación antigua y la nueva no pueden ser la misma.");
+            default -> new IllegalStateException("Resultado de transferencia desconocido: " + outcome);
+        };
     }
 
     private WaterBoxTransfer toEntity(WaterBoxTransferRequest request) {
@@ -0,0 +1,9 @@
+package pe.edu.vallegrande.ms_infraestructura.domain.enums;
+
+public enum AuditAction {
+    CREATE,
+    UPDATE,
+    DELETE,
+    RESTORE,
+    TRANSFER
+}
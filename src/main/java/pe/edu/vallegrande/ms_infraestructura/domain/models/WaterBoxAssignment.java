@@ -3,6 +3,8 @@ package pe.edu.vallegrande.ms_infraestructura.domain.models;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
@@ -42,6 +44,15 @@ public class WaterBoxAssignment {
     @Column("created_at")
     private LocalDateTime createdAt;
 
+    @LastModifiedDate
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+
     @Column("transfer_id")
     private Long transferId;
+
+    // Control de concurrencia optimista: el UPDATE falla si otra operación cambió la fila
+    @Version
+    @Column("version")
+    private Long version;
 }
\ No newline at end of file
@@ -40,14 +40,20 @@ public class WaterBoxTransfer {
 
     // Métodos helper para manejar la lista de documentos
     public List<String> getDocuments() {
+        return parseDocuments(documentsJson);
+    }
+
+    /**
+     * Lista de documentos a partir de la columna; el caso de un solo documento no recorre split
+     */
+    public static List<String> parseDocuments(String documentsJson) {
         if (documentsJson == null || documentsJson.isEmpty()) {
             return List.of();
         }
-        try {
-            return List.of(documentsJson.split(","));
-        } catch (Exception e) {
-            return List.of();
+        if (documentsJson.indexOf(',') < 0) {
+            return List.of(documentsJson);
         }
+        return List.of(documentsJson.split(","));
     }
 
     public void setDocuments(List<String> documents) {
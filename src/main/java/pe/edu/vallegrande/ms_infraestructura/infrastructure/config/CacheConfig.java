@@ -0,0 +1,46 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.EntityCache;
+
+import java.time.Duration;
+
+/**
+ * Cachés de lectura por ID (getById) de cajas, asignaciones y transferencias,
+ * y del historial por caja
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${app.cache.entities.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.cache.entities.ttl:PT10M}")
+    private Duration ttl;
+
+    @Bean
+    public EntityCache<WaterBoxResponse> waterBoxCache() {
+        return new EntityCache<>("water-boxes", maxSize, ttl);
+    }
+
+    @Bean
+    public EntityCache<WaterBoxAssignmentResponse> waterBoxAssignmentCache() {
+        return new EntityCache<>("water-box-assignments", maxSize, ttl);
+    }
+
+    @Bean
+    public EntityCache<WaterBoxTransferResponse> waterBoxTransferCache() {
+        return new EntityCache<>("water-box-transfers", maxSize, ttl);
+    }
+
+    @Bean
+    public EntityCache<WaterBoxHistoryResponse> waterBoxHistoryCache() {
+        return new EntityCache<>("water-box-history", maxSize, ttl);
+    }
+}
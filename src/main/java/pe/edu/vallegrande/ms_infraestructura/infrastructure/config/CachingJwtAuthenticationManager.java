@@ -0,0 +1,129 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.RequestTiming;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * AuthenticationManager que guarda el resultado de validar un bearer token.
+ * La SPA envía el mismo token cientos de veces por sesión: la primera vez se
+ * verifica la firma y se calculan las authorities; las siguientes se responde
+ * desde memoria hasta el "exp" del token.
+ * La llave es el SHA-256 del token (nunca se guarda el token en claro como llave).
+ * Cada validación real (firma, claims y authorities) se mide en el timer app.jwt.decode;
+ * los aciertos de la caché se ven en cache.gets{cache="jwt-tokens"}.
+ */
+public class CachingJwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final JwtReactiveAuthenticationManager delegate;
+    private final Cache<String, JwtAuthenticationToken> cache;
+    private final MeterRegistry meterRegistry;
+
+    public CachingJwtAuthenticationManager(ReactiveJwtDecoder jwtDecoder,
+                                           Converter<Jwt, ? extends Mono<? extends AbstractAuthenticationToken>> jwtAuthenticationConverter,
+                                           long maxSize,
+                                           MeterRegistry meterRegistry) {
+        // Firma/claims y conversión a authorities se miden por separado en RequestTiming
+        this.delegate = new JwtReactiveAuthenticationManager(token -> RequestTiming.time("jwt-decode", jwtDecoder.decode(token)));
+        this.delegate.setJwtAuthenticationConverter(jwt -> RequestTiming.time("jwt-convert", Mono.from(jwtAuthenticationConverter.convert(jwt))));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        this.meterRegistry = meterRegistry;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt-tokens");
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+            return Mono.empty();
+        }
+        String key = hash(bearer.getToken());
+        JwtAuthenticationToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return delegate.authenticate(authentication)
+                    .doOnNext(result -> {
+                        if (result instanceof JwtAuthenticationToken jwtAuthentication
+                                && jwtAuthentication.getToken().getExpiresAt() != null) {
+                            cache.put(key, jwtAuthentication);
+                        }
+                    })
+                    .doOnSuccess(result -> sample.stop(decodeTimer("success")))
+                    .doOnError(error -> sample.stop(decodeTimer("error")));
+        });
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private Timer decodeTimer(String outcome) {
+        return Timer.builder("app.jwt.decode")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Cada entrada vive hasta el "exp" de su token
+     */
+    private static final class TokenExpiry implements Expiry<String, JwtAuthenticationToken> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtAuthenticationToken value, long currentTime) {
+            Instant expiresAt = value.getToken().getExpiresAt();
+            long nanos = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(nanos, 0L);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtAuthenticationToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtAuthenticationToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
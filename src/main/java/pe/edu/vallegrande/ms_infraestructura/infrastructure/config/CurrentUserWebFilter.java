@@ -0,0 +1,50 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.CurrentUser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resuelve el {@link CurrentUser} una vez por petición (después de la autenticación)
+ * y lo deja en el contexto de Reactor.
+ * Se guarda además en los details del JwtAuthenticationToken: como ese token se
+ * reutiliza desde CachingJwtAuthenticationManager, el usuario se construye una sola
+ * vez por token y no en cada petición.
+ */
+public class CurrentUserWebFilter implements WebFilter {
+
+    private final String organizationClaim;
+
+    public CurrentUserWebFilter(String organizationClaim) {
+        this.organizationClaim = organizationClaim;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(this::resolve)
+                .flatMap(user -> chain.filter(exchange)
+                        .contextWrite(context -> context.put(CurrentUser.class, user))
+                        .thenReturn(Boolean.TRUE))
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(Boolean.TRUE)))
+                .then();
+    }
+
+    private CurrentUser resolve(Authentication authentication) {
+        JwtAuthenticationToken jwtAuthentication = (JwtAuthenticationToken) authentication;
+        if (jwtAuthentication.getDetails() instanceof CurrentUser cached) {
+            return cached;
+        }
+        CurrentUser user = CurrentUser.from(jwtAuthentication.getToken(), organizationClaim);
+        jwtAuthentication.setDetails(user);
+        return user;
+    }
+}
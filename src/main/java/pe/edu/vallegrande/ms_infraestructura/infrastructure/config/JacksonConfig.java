@@ -0,0 +1,19 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import com.fasterxml.jackson.databind.Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring Boot agrega los Module al ObjectMapper que usan los codecs de WebFlux,
+ * así que la omisión de null parciales aplica a respuestas sueltas, NDJSON/SSE y DTO
+ * anidados (PageResponse, historial)
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module sparseResponseModule() {
+        return new SparseResponseModule();
+    }
+}
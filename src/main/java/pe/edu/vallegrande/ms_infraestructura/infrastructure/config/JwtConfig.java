@@ -1,12 +1,30 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
-import org.springframework.security.oauth2.jwt.ReactiveJwtDecoders;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.JwkSetCache;
+import reactor.core.publisher.Flux;
 
+/**
+ * Decoders JWT construidos una sola vez al iniciar.
+ * Ambos comparten el {@link JwkSetCache}, por lo que validar un token no consulta
+ * el discovery de Keycloak ni descarga llaves salvo rotación.
+ */
 @Configuration
 public class JwtConfig {
 
@@ -14,21 +32,32 @@ public class JwtConfig {
     private String issuerUri;
 
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return token -> {
-            try {
-                return ReactiveJwtDecoders.fromIssuerLocation(issuerUri)
-                        .decode(token)
-        
-                        .block(); // Usar block() en lugar de toFuture().get()
-            } catch (Exception e) {
-                throw new RuntimeException("Error decoding JWT token", e);
-            }
-        };
+    public JwtDecoder jwtDecoder(JwkSetCache jwkSetCache) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256,
+                (jwkSelector, context) -> jwkSetCache.selectCached(jwkSelector)));
+        // Las validaciones de claims (exp, iss) las hace Spring con el validador
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(jwtValidator());
+        return decoder;
     }
-    
+
     @Bean
-    public ReactiveJwtDecoder reactiveJwtDecoder() {
-        return ReactiveJwtDecoders.fromIssuerLocation(issuerUri);
+    public ReactiveJwtDecoder reactiveJwtDecoder(JwkSetCache jwkSetCache) {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder
+                .withJwkSource(signedJwt -> {
+                    JWKMatcher matcher = JWKMatcher.forJWSHeader(signedJwt.getHeader());
+                    return matcher == null ? Flux.empty() : jwkSetCache.select(new JWKSelector(matcher));
+                })
+                .jwsAlgorithm(SignatureAlgorithm.RS256)
+                .build();
+        decoder.setJwtValidator(jwtValidator());
+        return decoder;
+    }
+
+    private OAuth2TokenValidator<Jwt> jwtValidator() {
+        return JwtValidators.createDefaultWithIssuer(issuerUri);
     }
-}
\ No newline at end of file
+}
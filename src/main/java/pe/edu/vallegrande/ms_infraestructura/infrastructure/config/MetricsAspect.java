@@ -0,0 +1,103 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.RequestTiming;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Timers de Micrometer para cada método público de los servicios (app.service) y de
+ * los repositorios (app.repository), con tags class, method, outcome y exception.
+ * En los métodos reactivos se mide desde la suscripción hasta la señal final
+ * (éxito, error o cancelación), no el armado del Mono/Flux; esa misma duración se
+ * suma a las fases "service" y "db" de RequestTiming.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MetricsAspect {
+
+    private static final String BASE_PACKAGE = "pe.edu.vallegrande.ms_infraestructura";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("execution(public * pe.edu.vallegrande.ms_infraestructura.application.services.impl..*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("app.service", "service", ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName(), joinPoint);
+    }
+
+    @Around("(this(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository))"
+            + " && execution(public * *(..)) && !execution(* java.lang.Object.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("app.repository", "db", repositoryName(joinPoint.getThis()), joinPoint);
+    }
+
+    private Object time(String metric, String phase, String className, ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable error) {
+            stop(sample, metric, className, method, SignalType.ON_ERROR, error);
+            throw error;
+        }
+        if (result instanceof Mono<?> mono) {
+            return RequestTiming.time(phase, Mono.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                AtomicReference<Throwable> failure = new AtomicReference<>();
+                return mono.doOnError(failure::set)
+                        .doFinally(signal -> stop(subscribed, metric, className, method, signal, failure.get()));
+            }));
+        }
+        if (result instanceof Flux<?> flux) {
+            return RequestTiming.time(phase, Flux.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                AtomicReference<Throwable> failure = new AtomicReference<>();
+                return flux.doOnError(failure::set)
+                        .doFinally(signal -> stop(subscribed, metric, className, method, signal, failure.get()));
+            }));
+        }
+        stop(sample, metric, className, method, SignalType.ON_COMPLETE, null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, String metric, String className, String method, SignalType signal, Throwable error) {
+        String outcome = switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+        sample.stop(Timer.builder(metric)
+                .tag("class", className)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    /**
+     * Los repositorios de Spring Data son proxies: se usa la interfaz propia del proyecto
+     */
+    private String repositoryName(Object proxy) {
+        return repositoryNames.computeIfAbsent(proxy.getClass(), type -> Arrays.stream(ClassUtils.getAllInterfacesForClass(type))
+                .filter(candidate -> candidate.getName().startsWith(BASE_PACKAGE))
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElseGet(() -> ClassUtils.getUserClass(type).getSimpleName()));
+    }
+}
@@ -0,0 +1,40 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Puntos de medición de RequestTimingWebFilter que no pasan por MetricsAspect:
+ * espera por conexión del pool (db-acquire) y serialización JSON (encode)
+ */
+@Configuration
+public class RequestTimingConfig {
+
+    @Bean
+    public static BeanPostProcessor timedConnectionFactoryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory connectionFactory && !(bean instanceof TimedConnectionFactory)) {
+                    return new TimedConnectionFactory(connectionFactory);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Se aplica después del customizer de Jackson de Spring Boot para reemplazar su encoder
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CodecCustomizer timedJsonEncoderCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.defaultCodecs().jackson2JsonEncoder(new TimedJackson2JsonEncoder(objectMapper));
+    }
+}
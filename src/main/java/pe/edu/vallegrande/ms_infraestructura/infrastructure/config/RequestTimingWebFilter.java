@@ -0,0 +1,77 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.RequestTiming;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Mide cada petición por fases (ver {@link RequestTiming}).
+ * Va antes que Spring Security para incluir la validación del JWT.
+ * Con app.timing.server-timing-header el desglose se devuelve en la cabecera
+ * Server-Timing; con app.timing.access-log cada petición deja una línea clave=valor
+ * en el logger "access", y las que superan app.timing.slow-threshold se registran
+ * como WARN con su desglose aunque el log de acceso esté apagado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingWebFilter implements WebFilter {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("access");
+
+    private final boolean serverTimingHeader;
+    private final boolean accessLogEnabled;
+    private final long slowThresholdNanos;
+
+    public RequestTimingWebFilter(@Value("${app.timing.server-timing-header:false}") boolean serverTimingHeader,
+                                  @Value("${app.timing.access-log:true}") boolean accessLogEnabled,
+                                  @Value("${app.timing.slow-threshold:PT1S}") Duration slowThreshold) {
+        this.serverTimingHeader = serverTimingHeader;
+        this.accessLogEnabled = accessLogEnabled;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        RequestTiming timing = new RequestTiming();
+        if (serverTimingHeader) {
+            exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() ->
+                    exchange.getResponse().getHeaders().set("Server-Timing", timing.toServerTiming())));
+        }
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(RequestTiming.class, timing))
+                .doFinally(signal -> log(exchange, timing, signal));
+    }
+
+    private void log(ServerWebExchange exchange, RequestTiming timing, SignalType signal) {
+        long elapsed = timing.elapsedNanos();
+        boolean slow = elapsed >= slowThresholdNanos;
+        if (!slow && !(accessLogEnabled && accessLog.isInfoEnabled())) {
+            return;
+        }
+        String line = "request_id=" + exchange.getRequest().getId()
+                + " method=" + exchange.getRequest().getMethod().name()
+                + " path=" + exchange.getRequest().getPath().value()
+                + " status=" + Optional.ofNullable(exchange.getResponse().getStatusCode()).map(HttpStatusCode::value).orElse(0)
+                + (signal == SignalType.CANCEL ? " cancelled=true" : "")
+                + " duration_ms=" + RequestTiming.millis(elapsed)
+                + " " + timing.toLogFields();
+        if (slow) {
+            accessLog.warn("slow=true {}", line.trim());
+        } else {
+            accessLog.info(line.trim());
+        }
+    }
+}
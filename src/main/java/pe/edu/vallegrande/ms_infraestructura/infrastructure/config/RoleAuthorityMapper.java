@@ -0,0 +1,120 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapeo rol -> authorities precalculado al iniciar.
+ * Los permisos de cada rol se leen de app.security.role-permissions y se guardan
+ * como sets inmutables compartidos; las combinaciones de roles/permisos que llegan
+ * en los tokens se resuelven una vez y se reutilizan, de modo que convertir un JWT
+ * no crea nuevas authorities en cada petición.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.security")
+@Slf4j
+public class RoleAuthorityMapper {
+
+    private static final int MAX_CACHED_COMBINATIONS = 1024;
+    private static final int MAX_INTERNED_AUTHORITIES = 4096;
+
+    private Map<String, List<String>> rolePermissions = new LinkedHashMap<>();
+
+    private Map<String, Set<GrantedAuthority>> authoritiesByRole = Map.of();
+    private final Map<String, GrantedAuthority> internedAuthorities = new ConcurrentHashMap<>();
+    private final Map<RoleCombination, Set<GrantedAuthority>> combinations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        Map<String, Set<GrantedAuthority>> byRole = new HashMap<>();
+        rolePermissions.forEach((role, permissions) -> {
+            Set<GrantedAuthority> authorities = new HashSet<>();
+            authorities.add(authority("ROLE_" + role));
+            permissions.forEach(permission -> authorities.add(authority(permission.trim())));
+            byRole.put(role, Set.copyOf(authorities));
+        });
+        this.authoritiesByRole = Map.copyOf(byRole);
+        log.info("Permisos precalculados para los roles {}", authoritiesByRole.keySet());
+    }
+
+    /**
+     * Authorities de un token: roles de realm_access, claim "role" y claim "permissions".
+     * El resultado es inmutable y se comparte entre todos los tokens con la misma combinación.
+     */
+    public Collection<GrantedAuthority> map(List<String> realmRoles, String customRole, List<String> permissions) {
+        RoleCombination key = new RoleCombination(realmRoles, customRole, permissions);
+        Set<GrantedAuthority> cached = combinations.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Set<GrantedAuthority> resolved = resolve(realmRoles, customRole, permissions);
+        if (combinations.size() < MAX_CACHED_COMBINATIONS) {
+            combinations.putIfAbsent(key, resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * Authorities precalculadas de un rol (incluye ROLE_<rol>)
+     */
+    public Set<GrantedAuthority> authoritiesForRole(String role) {
+        Set<GrantedAuthority> authorities = authoritiesByRole.get(role);
+        if (authorities != null) {
+            return authorities;
+        }
+        log.debug("Rol {} no tiene permisos predefinidos", role);
+        return Set.of(authority("ROLE_" + role));
+    }
+
+    private Set<GrantedAuthority> resolve(List<String> realmRoles, String customRole, List<String> permissions) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        realmRoles.forEach(role -> authorities.addAll(authoritiesForRole(role)));
+        if (customRole != null) {
+            authorities.addAll(authoritiesForRole(customRole));
+        }
+        permissions.forEach(permission -> authorities.add(authority(permission)));
+        return Set.copyOf(authorities);
+    }
+
+    private GrantedAuthority authority(String name) {
+        GrantedAuthority authority = internedAuthorities.get(name);
+        if (authority != null) {
+            return authority;
+        }
+        authority = new SimpleGrantedAuthority(name);
+        if (internedAuthorities.size() < MAX_INTERNED_AUTHORITIES) {
+            GrantedAuthority previous = internedAuthorities.putIfAbsent(name, authority);
+            return previous != null ? previous : authority;
+        }
+        return authority;
+    }
+
+    public Map<String, List<String>> getRolePermissions() {
+        return rolePermissions;
+    }
+
+    public void setRolePermissions(Map<String, List<String>> rolePermissions) {
+        this.rolePermissions = rolePermissions;
+    }
+
+    private record RoleCombination(List<String> realmRoles, String customRole, List<String> permissions) {
+        RoleCombination {
+            Objects.requireNonNull(realmRoles);
+            Objects.requireNonNull(permissions);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -10,7 +11,6 @@ import org.springframework.security.config.annotation.web.reactive.EnableWebFlux
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
@@ -26,9 +26,8 @@ import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.JwtService;
 import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 @Configuration
 @EnableWebFluxSecurity
@@ -37,9 +36,14 @@ import java.util.Set;
 public class SecurityConfig {
 
     private final JwtService jwtService;
+    private final RoleAuthorityMapper roleAuthorityMapper;
+
+    @Value("${app.security.organization-claim:organization_id}")
+    private String organizationClaim;
     
-    public SecurityConfig(JwtService jwtService) {
+    public SecurityConfig(JwtService jwtService, RoleAuthorityMapper roleAuthorityMapper) {
         this.jwtService = jwtService;
+        this.roleAuthorityMapper = roleAuthorityMapper;
     }
     
     // JwtDecoder beans moved to JwtConfig
@@ -55,7 +59,8 @@ public class SecurityConfig {
     );
 
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         CachingJwtAuthenticationManager jwtAuthenticationManager) {
         return http
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .authorizeExchange(exchanges -> exchanges
@@ -64,86 +69,43 @@ public class SecurityConfig {
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
                         .jwt(jwt -> jwt
-                            .jwtAuthenticationConverter(jwtAuthenticationConverter())
+                            .authenticationManager(jwtAuthenticationManager)
                         )
                 )
+                // Usuario de la petición disponible en el contexto de Reactor para servicios y controladores
+                .addFilterAfter(new CurrentUserWebFilter(organizationClaim), SecurityWebFiltersOrder.AUTHENTICATION)
                 .build();
     }
     
-    // JwtDecoder beans moved to JwtConfig
+    /**
+     * Valida el token (firma + authorities) una sola vez y reutiliza el resultado
+     * hasta su expiración
+     */
+    @Bean
+    public CachingJwtAuthenticationManager jwtAuthenticationManager(
+            ReactiveJwtDecoder reactiveJwtDecoder,
+            @Value("${app.security.token-cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        return new CachingJwtAuthenticationManager(reactiveJwtDecoder, jwtAuthenticationConverter(), maxSize, meterRegistry);
+    }
     
     @Bean
     public ReactiveJwtAuthenticationConverterAdapter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        // Roles de realm_access.roles (estándar de Keycloak), rol personalizado y permisos del token;
+        // las authorities de cada rol vienen precalculadas en RoleAuthorityMapper
         converter.setJwtGrantedAuthoritiesConverter(jwt -> {
-            Set<GrantedAuthority> authorities = new HashSet<>();
-            
-            // Extraer roles de realm_access.roles (estándar de Keycloak)
-            List<String> realmRoles = extractRealmRoles(jwt);
-            realmRoles.forEach(role -> {
-                authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
-                log.debug("Agregado rol de realm: ROLE_{}", role);
-                addPermissionsByRole(authorities, role);
-            });
-            
-            // También extraer de custom claims si existen 
-            String customRole = jwt.getClaimAsString("role"); 
-            if (customRole != null) { 
-                authorities.add(new SimpleGrantedAuthority("ROLE_" + customRole)); 
-                log.debug("Agregado rol personalizado: ROLE_{}", customRole); 
-                addPermissionsByRole(authorities, customRole); 
-            } 
-            
-            List<String> permissions = extractPermissionsList(jwt); 
-            if (permissions != null) { 
-                permissions.forEach(permission -> { 
-                    authorities.add(new SimpleGrantedAuthority(permission)); 
-                    log.debug("Agregado permiso: {}", permission); 
-                }); 
-            } 
-            
-            log.info("Usuario {} autenticado con {} authorities", jwt.getSubject(), authorities.size()); 
-            return authorities; 
-        }); 
+            Collection<GrantedAuthority> authorities = roleAuthorityMapper.map(
+                    extractRealmRoles(jwt), jwt.getClaimAsString("role"), extractPermissionsList(jwt));
+            if (log.isDebugEnabled()) {
+                log.debug("Usuario {} autenticado con {} authorities", jwt.getSubject(), authorities.size());
+            }
+            return authorities;
+        });
         
         return new ReactiveJwtAuthenticationConverterAdapter(converter); 
     }
     
-    /** 
-     * Método auxiliar para agregar permisos automáticamente según el rol 
-     */ 
-    private void addPermissionsByRole(Set<GrantedAuthority> authorities, String role) { 
-        switch (role) { 
-            case "SUPER_ADMIN" -> { 
-                // Permisos del SUPER_ADMIN 
-                authorities.add(new SimpleGrantedAuthority("CREATE_ADMIN")); 
-                authorities.add(new SimpleGrantedAuthority("UPDATE_ADMIN")); 
-                authorities.add(new SimpleGrantedAuthority("DELETE_ADMIN")); 
-                authorities.add(new SimpleGrantedAuthority("VIEW_ALL_ADMINS")); 
-                authorities.add(new SimpleGrantedAuthority("MANAGE_SYSTEM")); 
-                authorities.add(new SimpleGrantedAuthority("DELETE_ANY_USER")); 
-                log.debug("Agregados permisos de SUPER_ADMIN"); 
-            } 
-            case "ADMIN" -> { 
-                // Permisos del ADMIN 
-                authorities.add(new SimpleGrantedAuthority("CREATE_CLIENT")); 
-                authorities.add(new SimpleGrantedAuthority("UPDATE_CLIENT")); 
-                authorities.add(new SimpleGrantedAuthority("DELETE_CLIENT")); 
-                authorities.add(new SimpleGrantedAuthority("VIEW_ORG_CLIENTS")); 
-                authorities.add(new SimpleGrantedAuthority("MANAGE_ORG")); 
-                authorities.add(new SimpleGrantedAuthority("RESTORE_CLIENT")); 
-                log.debug("Agregados permisos de ADMIN"); 
-            } 
-            case "CLIENT" -> { 
-                // Permisos del CLIENT 
-                authorities.add(new SimpleGrantedAuthority("VIEW_OWN_PROFILE")); 
-                authorities.add(new SimpleGrantedAuthority("UPDATE_OWN_PROFILE")); 
-                log.debug("Agregados permisos de CLIENT"); 
-            } 
-            default -> log.debug("Rol {} no tiene permisos predefinidos", role); 
-        } 
-    } 
-    
     /** 
      * Método auxiliar para extraer roles de realm_access.roles de Keycloak 
      */ 
@@ -0,0 +1,60 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.SparseResponse;
+
+import java.util.List;
+
+/**
+ * Omite los atributos null de las respuestas parciales (leídas con "fields").
+ * Se aplica a cualquier DTO que implemente SparseResponse sin listar sus campos, así
+ * que un atributo nuevo se serializa igual que los demás; una respuesta completa
+ * conserva sus null explícitos.
+ */
+public class SparseResponseModule extends SimpleModule {
+
+    public SparseResponseModule() {
+        super("SparseResponseModule");
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                             List<BeanPropertyWriter> beanProperties) {
+                if (!SparseResponse.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    return beanProperties;
+                }
+                return beanProperties.stream().<BeanPropertyWriter>map(SparsePropertyWriter::new).toList();
+            }
+        });
+    }
+
+    private static final class SparsePropertyWriter extends BeanPropertyWriter {
+
+        private SparsePropertyWriter(BeanPropertyWriter base) {
+            super(base);
+        }
+
+        private SparsePropertyWriter(BeanPropertyWriter base, PropertyName name) {
+            super(base, name);
+        }
+
+        @Override
+        protected BeanPropertyWriter _new(PropertyName newName) {
+            return new SparsePropertyWriter(this, newName);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (((SparseResponse) bean).isSparse() && get(bean) == null) {
+                return;
+            }
+            super.serializeAsField(bean, gen, prov);
+        }
+    }
+}
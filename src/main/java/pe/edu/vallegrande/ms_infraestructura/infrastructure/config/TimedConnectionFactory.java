@@ -0,0 +1,49 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.beans.factory.DisposableBean;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.RequestTiming;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Suma a la fase "db-acquire" la espera por una conexión del pool.
+ * Implementa Wrapped para que las métricas del pool de Spring Boot sigan
+ * encontrando el ConnectionPool original.
+ */
+public class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, DisposableBean {
+
+    private final ConnectionFactory delegate;
+
+    public TimedConnectionFactory(ConnectionFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<? extends Connection> create() {
+        return RequestTiming.time("db-acquire", Mono.from(delegate.create()));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    /**
+     * El pool se cierra con el contexto como si no estuviera envuelto
+     */
+    @Override
+    public void destroy() {
+        if (delegate instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.RequestTiming;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encoder JSON que suma a la fase "encode" el tiempo de serializar cada valor.
+ * Se mide desde que el valor llega al encoder hasta que sale su buffer, de modo
+ * que en NDJSON/SSE no se cuenta la espera por la siguiente fila de Postgres.
+ */
+public class TimedJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    public TimedJackson2JsonEncoder(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.deferContextual(context -> context.<RequestTiming>getOrEmpty(RequestTiming.class)
+                .map(timing -> {
+                    AtomicLong valueArrivedAt = new AtomicLong();
+                    // Se conserva el tipo Mono: el encoder base decide por él cómo serializar
+                    Publisher<?> timedInput = inputStream instanceof Mono<?> mono
+                            ? mono.doOnNext(value -> valueArrivedAt.set(System.nanoTime()))
+                            : Flux.from(inputStream).doOnNext(value -> valueArrivedAt.set(System.nanoTime()));
+                    return super.encode(timedInput, bufferFactory, elementType, mimeType, hints)
+                            .doOnNext(buffer -> {
+                                long arrivedAt = valueArrivedAt.getAndSet(0);
+                                if (arrivedAt != 0) {
+                                    timing.record("encode", System.nanoTime() - arrivedAt);
+                                }
+                            });
+                })
+                .orElseGet(() -> super.encode(inputStream, bufferFactory, elementType, mimeType, hints)));
+    }
+}
@@ -0,0 +1,44 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Campos pedidos con el parámetro "fields" (ej. fields=id,boxCode,status).
+ * Vacío significa todos los campos. Los nombres son los del JSON de respuesta;
+ * cada repositorio valida que existan y los traduce a columnas.
+ */
+@Getter
+public class FieldSelection {
+
+    private static final FieldSelection ALL = new FieldSelection(Set.of());
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static FieldSelection of(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(requested::add);
+        return requested.isEmpty() ? ALL : new FieldSelection(requested);
+    }
+
+    public static FieldSelection all() {
+        return ALL;
+    }
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request;
+
+import lombok.Getter;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Parámetros de paginación por cursor (keyset sobre la columna id).
+ * El cursor es opaco para el cliente: codifica el último id entregado,
+ * de modo que cada página se resuelve con "id > cursor ORDER BY id LIMIT n"
+ * y su costo no depende de la profundidad de la página.
+ */
+@Getter
+public class PageQuery {
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 500;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final long afterId;
+    private final int size;
+
+    private PageQuery(long afterId, int size) {
+        this.afterId = afterId;
+        this.size = size;
+    }
+
+    public static PageQuery of(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_SIZE : size;
+        if (pageSize < 1) {
+            throw new BadRequestException("El tamaño de página debe ser mayor que cero.");
+        }
+        return new PageQuery(decodeCursor(cursor), Math.min(pageSize, MAX_SIZE));
+    }
+
+    /**
+     * Se pide una fila extra para saber si existe una página siguiente
+     * sin necesidad de un COUNT(*).
+     */
+    public int fetchLimit() {
+        return size + 1;
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("El cursor de paginación no es válido.");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkCreateResponse {
+    private int total;
+    private int created;
+    private int rejected;
+    private List<BulkItemResult> items;
+}
@@ -0,0 +1,22 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkItemResult {
+    private int index;
+    private String boxCode;
+    private boolean created;
+    private Long id;
+    private List<String> errors;
+}
@@ -0,0 +1,31 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.EntityCache;
+
+@Getter
+@Setter
+@Builder
+public class CacheStatsResponse {
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+
+    public static CacheStatsResponse of(EntityCache<?> cache) {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .name(cache.getName())
+                .size(cache.size())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
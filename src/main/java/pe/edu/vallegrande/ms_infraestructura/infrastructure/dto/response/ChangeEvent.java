@@ -0,0 +1,32 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Cambio anunciado por Postgres (trigger notify_infra_change), uno por sentencia y
+ * organización. entity es la tabla; "resync" indica que pudieron perderse avisos y hay
+ * que recargar. id y waterBoxId solo vienen si el aviso es de una sola fila (count = 1).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeEvent {
+
+    public static final String RESYNC = "resync";
+
+    private String entity;                 // water_boxes, water_box_assignments, water_box_transfers o resync
+    private String operation;              // INSERT o UPDATE
+    private Long id;
+    private Long waterBoxId;
+    private String organizationId;
+    private String previousOrganizationId; // Solo si la caja cambió de organización
+    private Long count;                    // Filas de la sentencia agrupadas en este aviso
+}
@@ -0,0 +1,31 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrganizationSummaryResponse {
+    private String organizationId; // null = todas las organizaciones
+    private long totalBoxes;
+    private Map<Status, Long> boxesByStatus;
+    private Map<BoxType, Long> boxesByType;
+    private long activeAssignments;
+    private BigDecimal totalMonthlyFees;
+    private YearMonth month;
+    private long transfersThisMonth;
+    private LocalDateTime lastReconciledAt;
+}
@@ -0,0 +1,33 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@Builder
+public class PageResponse<T> {
+    private List<T> items;
+    private int size;
+    private String next; // null cuando no hay más páginas
+
+    /**
+     * Construye la página a partir de las filas leídas con {@link PageQuery#fetchLimit()}.
+     * La fila extra (si existe) sólo indica que hay página siguiente y se descarta.
+     */
+    public static <T> PageResponse<T> of(List<T> rows, PageQuery pageQuery, Function<T, Long> idExtractor) {
+        boolean hasNext = rows.size() > pageQuery.getSize();
+        List<T> items = hasNext ? rows.subList(0, pageQuery.getSize()) : rows;
+        String next = hasNext ? PageQuery.encodeCursor(idExtractor.apply(items.get(items.size() - 1))) : null;
+        return PageResponse.<T>builder()
+                .items(items)
+                .size(items.size())
+                .next(next)
+                .build();
+    }
+}
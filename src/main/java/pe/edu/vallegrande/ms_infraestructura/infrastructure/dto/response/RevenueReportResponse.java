@@ -0,0 +1,24 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueReportResponse {
+    private YearMonth from;
+    private YearMonth to;
+    private BigDecimal totalActual;
+    private BigDecimal totalProjected;
+    private List<RevenueReportRow> rows;
+}
@@ -0,0 +1,23 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueReportRow {
+    private String organizationId;
+    private BoxType boxType;
+    private BigDecimal actual;    // Hasta el mes en curso
+    private BigDecimal projected; // Todo el rango, asumiendo que las asignaciones vigentes continúan
+    private long assignments;
+}
@@ -0,0 +1,13 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+/**
+ * Respuesta que puede leerse con una selección de campos (parámetro "fields").
+ * Una respuesta parcial omite en el JSON los atributos null, que son los no pedidos;
+ * una respuesta completa envía todos sus atributos, también los null.
+ */
+public interface SparseResponse {
+
+    boolean isSparse();
+
+    void setSparse(boolean sparse);
+}
@@ -1,7 +1,10 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
 
@@ -10,8 +13,10 @@ import java.time.LocalDateTime;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 @Builder
-public class WaterBoxAssignmentResponse {
+public class WaterBoxAssignmentResponse implements SparseResponse {
     private Long id;
     private Long waterBoxId;
     private String userId;
@@ -21,4 +26,8 @@ public class WaterBoxAssignmentResponse {
     private Status status;
     private LocalDateTime createdAt;
     private Long transferId;
-}
\ No newline at end of file
+
+    // Leída con "fields": el JSON omite los atributos null (no pedidos)
+    @JsonIgnore
+    private boolean sparse;
+}
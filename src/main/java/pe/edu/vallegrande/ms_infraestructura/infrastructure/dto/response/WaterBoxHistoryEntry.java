@@ -0,0 +1,27 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Paso del historial de una caja de agua: una asignación o la transferencia que
+ * llevó a la siguiente. chainId es la asignación con la que empezó la cadena
+ * (una caja puede tener varias si se asignó de nuevo sin transferencia).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaterBoxHistoryEntry {
+    private String type; // ASSIGNMENT o TRANSFER
+    private Long chainId;
+    private Integer step;
+    private WaterBoxAssignmentResponse assignment;
+    private WaterBoxTransferResponse transfer;
+}
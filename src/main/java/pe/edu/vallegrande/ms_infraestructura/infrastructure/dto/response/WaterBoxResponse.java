@@ -1,7 +1,10 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
 import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
@@ -11,8 +14,10 @@ import java.time.LocalDateTime;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 @Builder
-public class WaterBoxResponse {
+public class WaterBoxResponse implements SparseResponse {
     private Long id;
     private String organizationId;
     private String boxCode;
@@ -21,4 +26,8 @@ public class WaterBoxResponse {
     private Long currentAssignmentId;
     private Status status;
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+
+    // Leída con "fields": el JSON omite los atributos null (no pedidos)
+    @JsonIgnore
+    private boolean sparse;
+}
@@ -1,7 +1,10 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
@@ -9,8 +12,10 @@ import java.util.List;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 @Builder
-public class WaterBoxTransferResponse {
+public class WaterBoxTransferResponse implements SparseResponse {
     private Long id;
     private Long waterBoxId;
     private Long oldAssignmentId;
@@ -18,4 +23,8 @@ public class WaterBoxTransferResponse {
     private String transferReason;
     private List<String> documents;
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+
+    // Leída con "fields": el JSON omite los atributos null (no pedidos)
+    @JsonIgnore
+    private boolean sparse;
+}
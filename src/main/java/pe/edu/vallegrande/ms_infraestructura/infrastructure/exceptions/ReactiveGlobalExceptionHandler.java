@@ -1,6 +1,7 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -49,6 +50,21 @@ public class ReactiveGlobalExceptionHandler {
         return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, ServerWebExchange exchange) {
+        log.error("Conflicto de concurrencia: {}", ex.getMessage());
+        
+        Map<String, Object> errorResponse = createErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Conflicto de concurrencia",
+            "El recurso fue modificado por otra operación. Vuelva a intentarlo.",
+            exchange.getRequest().getPath().value()
+        );
+        
+        return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public Mono<ResponseEntity<Map<String, Object>>> handleAccessDeniedException(
             AccessDeniedException ex, ServerWebExchange exchange) {
@@ -0,0 +1,63 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Inserción por lotes de la tabla audit_events: un INSERT multi-fila por lote
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditEventRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Long> insertAll(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO audit_events " +
+                "(user_id, username, action, entity_type, entity_id, before_summary, after_summary, created_at) VALUES ");
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:userId").append(i)
+                    .append(", :username").append(i)
+                    .append(", :action").append(i)
+                    .append(", :entityType").append(i)
+                    .append(", :entityId").append(i)
+                    .append(", :before").append(i)
+                    .append(", :after").append(i)
+                    .append(", :createdAt").append(i).append(")");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < events.size(); i++) {
+            AuditEvent event = events.get(i);
+            spec = bindNullable(spec, "userId" + i, event.userId(), String.class);
+            spec = bindNullable(spec, "username" + i, event.username(), String.class);
+            spec = spec.bind("action" + i, event.action())
+                    .bind("entityType" + i, event.entityType())
+                    .bind("createdAt" + i, event.createdAt());
+            spec = bindNullable(spec, "entityId" + i, event.entityId(), Long.class);
+            spec = bindNullable(spec, "before" + i, event.before(), String.class);
+            spec = bindNullable(spec, "after" + i, event.after(), String.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                                   Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    public record AuditEvent(String userId, String username, String action, String entityType, Long entityId,
+                             String before, String after, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,45 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Última modificación por organización y tipo de entidad, en una sola consulta.
+ * Las transferencias no se modifican después de crearse, así que usan created_at.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChangeVersionQueryRepository {
+
+    private static final String LAST_CHANGES_SQL = """
+            SELECT organization_id, 'WATER_BOXES' AS entity, MAX(updated_at) AS changed_at
+            FROM water_boxes
+            GROUP BY organization_id
+            UNION ALL
+            SELECT b.organization_id, 'ASSIGNMENTS', MAX(a.updated_at)
+            FROM water_box_assignments a JOIN water_boxes b ON b.id = a.water_box_id
+            GROUP BY b.organization_id
+            UNION ALL
+            SELECT b.organization_id, 'TRANSFERS', MAX(t.created_at)
+            FROM water_box_transfers t JOIN water_boxes b ON b.id = t.water_box_id
+            GROUP BY b.organization_id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<LastChange> lastChanges() {
+        return databaseClient.sql(LAST_CHANGES_SQL)
+                .map((row, metadata) -> new LastChange(
+                        row.get("organization_id", String.class),
+                        row.get("entity", String.class),
+                        row.get("changed_at", LocalDateTime.class)))
+                .all();
+    }
+
+    public record LastChange(String organizationId, String entity, LocalDateTime changedAt) {
+    }
+}
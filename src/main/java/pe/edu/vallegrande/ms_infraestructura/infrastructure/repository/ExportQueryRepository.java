@@ -0,0 +1,103 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Filas crudas para la exportación CSV: cada fila llega como Object[] en el orden
+ * de las columnas del SELECT, sin pasar por entidades ni DTOs. Se lee con cursor
+ * (fetchSize) y limitRate, por lo que el consumo de memoria no depende del total.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExportQueryRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public Flux<Object[]> stream(ExportEntity entity, String organizationId, Status status) {
+        StringBuilder sql = new StringBuilder(entity.select).append(" WHERE TRUE");
+        if (organizationId != null) {
+            sql.append(" AND b.organization_id = :organizationId");
+        }
+        if (status != null) {
+            sql.append(" AND ").append(entity.alias).append(".status = :status");
+        }
+        sql.append(" ORDER BY ").append(entity.alias).append(".id");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        if (organizationId != null) {
+            spec = spec.bind("organizationId", organizationId);
+        }
+        if (status != null) {
+            spec = spec.bind("status", status.name());
+        }
+        int columns = entity.columns.length;
+        return spec.filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> {
+                    Object[] values = new Object[columns];
+                    for (int i = 0; i < columns; i++) {
+                        values[i] = row.get(i);
+                    }
+                    return values;
+                })
+                .all()
+                .limitRate(fetchSize);
+    }
+
+    public enum ExportEntity {
+        WATER_BOXES("water-boxes", "b", true,
+                "SELECT b.id, b.organization_id, b.box_code, b.box_type, b.installation_date, b.current_assignment_id, " +
+                "b.status, b.created_at FROM water_boxes b",
+                "id", "organization_id", "box_code", "box_type", "installation_date", "current_assignment_id",
+                "status", "created_at"),
+        ASSIGNMENTS("assignments", "a", true,
+                "SELECT a.id, a.water_box_id, b.organization_id, a.user_id, a.start_date, a.end_date, a.monthly_fee, " +
+                "a.status, a.transfer_id, a.created_at FROM water_box_assignments a JOIN water_boxes b ON b.id = a.water_box_id",
+                "id", "water_box_id", "organization_id", "user_id", "start_date", "end_date", "monthly_fee",
+                "status", "transfer_id", "created_at"),
+        TRANSFERS("transfers", "t", false,
+                "SELECT t.id, t.water_box_id, b.organization_id, t.old_assignment_id, t.new_assignment_id, " +
+                "t.transfer_reason, t.documents, t.created_at FROM water_box_transfers t JOIN water_boxes b ON b.id = t.water_box_id",
+                "id", "water_box_id", "organization_id", "old_assignment_id", "new_assignment_id",
+                "transfer_reason", "documents", "created_at");
+
+        private final String path;
+        private final String alias;
+        private final boolean hasStatus;
+        private final String select;
+        private final String[] columns;
+
+        ExportEntity(String path, String alias, boolean hasStatus, String select, String... columns) {
+            this.path = path;
+            this.alias = alias;
+            this.hasStatus = hasStatus;
+            this.select = select;
+            this.columns = columns;
+        }
+
+        public static Optional<ExportEntity> fromPath(String path) {
+            return Arrays.stream(values()).filter(entity -> entity.path.equals(path)).findFirst();
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public boolean hasStatus() {
+            return hasStatus;
+        }
+
+        public String[] columns() {
+            return columns.clone();
+        }
+    }
+}
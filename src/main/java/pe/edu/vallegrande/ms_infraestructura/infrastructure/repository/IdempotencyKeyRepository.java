@@ -0,0 +1,58 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuestas guardadas por llave de idempotencia (tabla idempotency_keys).
+ * Solo se usa cuando app.idempotency.persistent está activo.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<StoredResponse> find(String keyHash, LocalDateTime now) {
+        return databaseClient.sql("SELECT fingerprint, response_body FROM idempotency_keys " +
+                        "WHERE key_hash = :keyHash AND expires_at > :now")
+                .bind("keyHash", keyHash)
+                .bind("now", now)
+                .map((row, metadata) -> new StoredResponse(
+                        row.get("fingerprint", String.class),
+                        row.get("response_body", String.class)))
+                .one();
+    }
+
+    /**
+     * Si otro nodo ya guardó la misma llave se conserva la primera respuesta
+     */
+    public Mono<Void> save(String keyHash, String fingerprint, String responseBody,
+                           LocalDateTime createdAt, LocalDateTime expiresAt) {
+        return databaseClient.sql("INSERT INTO idempotency_keys (key_hash, fingerprint, response_body, created_at, expires_at) " +
+                        "VALUES (:keyHash, :fingerprint, :responseBody, :createdAt, :expiresAt) " +
+                        "ON CONFLICT (key_hash) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, " +
+                        "response_body = EXCLUDED.response_body, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+                        "WHERE idempotency_keys.expires_at <= EXCLUDED.created_at")
+                .bind("keyHash", keyHash)
+                .bind("fingerprint", fingerprint)
+                .bind("responseBody", responseBody)
+                .bind("createdAt", createdAt)
+                .bind("expiresAt", expiresAt)
+                .then();
+    }
+
+    public Mono<Long> deleteExpired(LocalDateTime now) {
+        return databaseClient.sql("DELETE FROM idempotency_keys WHERE expires_at <= :now")
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public record StoredResponse(String fingerprint, String responseBody) {
+    }
+}
@@ -0,0 +1,185 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxTransfer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.SparseResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Consultas de listado (páginas JSON y streaming NDJSON / SSE).
+ * Las filas se leen directo al DTO de respuesta con ResponseProjection y, si se
+ * indica "fields", el SELECT solo trae esas columnas.
+ * Páginas: keyset "id > :afterId ORDER BY id LIMIT :limit".
+ * Streaming: se fija el fetchSize del cursor de R2DBC para que las filas se pidan
+ * a Postgres por lotes a medida que el cliente HTTP las consume.
+ * Cuando se indica organizationId el filtro se resuelve en SQL.
+ * Los listados "del usuario" (/me) filtran por water_box_assignments.user_id con
+ * idx_assignments_user y solo leen las filas del usuario.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ListQueryRepository {
+
+    private static final ResponseProjection<WaterBoxResponse> WATER_BOX = ResponseProjection.of(WaterBoxResponse::new)
+            .field("id", "id", (dto, row) -> dto.setId(row.get("id", Long.class)))
+            .field("organizationId", "organization_id", (dto, row) -> dto.setOrganizationId(row.get("organization_id", String.class)))
+            .field("boxCode", "box_code", (dto, row) -> dto.setBoxCode(row.get("box_code", String.class)))
+            .field("boxType", "box_type", (dto, row) -> dto.setBoxType(toEnum(BoxType.class, row.get("box_type", String.class))))
+            .field("installationDate", "installation_date", (dto, row) -> dto.setInstallationDate(row.get("installation_date", LocalDate.class)))
+            .field("currentAssignmentId", "current_assignment_id", (dto, row) -> dto.setCurrentAssignmentId(row.get("current_assignment_id", Long.class)))
+            .field("status", "status", (dto, row) -> dto.setStatus(toEnum(Status.class, row.get("status", String.class))))
+            .field("createdAt", "created_at", (dto, row) -> dto.setCreatedAt(row.get("created_at", LocalDateTime.class)));
+
+    private static final ResponseProjection<WaterBoxAssignmentResponse> ASSIGNMENT = ResponseProjection.of(WaterBoxAssignmentResponse::new)
+            .field("id", "id", (dto, row) -> dto.setId(row.get("id", Long.class)))
+            .field("waterBoxId", "water_box_id", (dto, row) -> dto.setWaterBoxId(row.get("water_box_id", Long.class)))
+            .field("userId", "user_id", (dto, row) -> dto.setUserId(row.get("user_id", String.class)))
+            .field("startDate", "start_date", (dto, row) -> dto.setStartDate(row.get("start_date", LocalDateTime.class)))
+            .field("endDate", "end_date", (dto, row) -> dto.setEndDate(row.get("end_date", LocalDateTime.class)))
+            .field("monthlyFee", "monthly_fee", (dto, row) -> dto.setMonthlyFee(row.get("monthly_fee", BigDecimal.class)))
+            .field("status", "status", (dto, row) -> dto.setStatus(toEnum(Status.class, row.get("status", String.class))))
+            .field("createdAt", "created_at", (dto, row) -> dto.setCreatedAt(row.get("created_at", LocalDateTime.class)))
+            .field("transferId", "transfer_id", (dto, row) -> dto.setTransferId(row.get("transfer_id", Long.class)));
+
+    private static final ResponseProjection<WaterBoxTransferResponse> TRANSFER = ResponseProjection.of(WaterBoxTransferResponse::new)
+            .field("id", "id", (dto, row) -> dto.setId(row.get("id", Long.class)))
+            .field("waterBoxId", "water_box_id", (dto, row) -> dto.setWaterBoxId(row.get("water_box_id", Long.class)))
+            .field("oldAssignmentId", "old_assignment_id", (dto, row) -> dto.setOldAssignmentId(row.get("old_assignment_id", Long.class)))
+            .field("newAssignmentId", "new_assignment_id", (dto, row) -> dto.setNewAssignmentId(row.get("new_assignment_id", Long.class)))
+            .field("transferReason", "transfer_reason", (dto, row) -> dto.setTransferReason(row.get("transfer_reason", String.class)))
+            .field("documents", "documents", (dto, row) -> dto.setDocuments(WaterBoxTransfer.parseDocuments(row.get("documents", String.class))))
+            .field("createdAt", "created_at", (dto, row) -> dto.setCreatedAt(row.get("created_at", LocalDateTime.class)));
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.streaming.fetch-size:256}")
+    private int fetchSize;
+
+    public Flux<WaterBoxResponse> pageWaterBoxes(String organizationId, Status status, FieldSelection fields, PageQuery pageQuery) {
+        return waterBoxes(organizationId, status, fields, pageQuery);
+    }
+
+    public Flux<WaterBoxResponse> streamWaterBoxes(String organizationId, Status status, FieldSelection fields) {
+        return waterBoxes(organizationId, status, fields, null);
+    }
+
+    public Flux<WaterBoxAssignmentResponse> pageAssignments(String organizationId, Status status, FieldSelection fields, PageQuery pageQuery) {
+        return assignments(organizationId, status, fields, pageQuery);
+    }
+
+    public Flux<WaterBoxAssignmentResponse> streamAssignments(String organizationId, Status status, FieldSelection fields) {
+        return assignments(organizationId, status, fields, null);
+    }
+
+    public Flux<WaterBoxTransferResponse> pageTransfers(String organizationId, FieldSelection fields, PageQuery pageQuery) {
+        return transfers(organizationId, fields, pageQuery);
+    }
+
+    public Flux<WaterBoxTransferResponse> streamTransfers(String organizationId, FieldSelection fields) {
+        return transfers(organizationId, fields, null);
+    }
+
+    // Cajas con alguna asignación (activa o no) del usuario
+    public Flux<WaterBoxResponse> userWaterBoxes(String userId, FieldSelection fields) {
+        ResponseProjection.Selection<WaterBoxResponse> selection = WATER_BOX.select(fields);
+        String sql = "SELECT " + selection.sql("b") + " FROM water_boxes b " +
+                "WHERE b.id IN (SELECT water_box_id FROM water_box_assignments WHERE user_id = :userId) ORDER BY b.id";
+        return byUser(sql, userId, selection);
+    }
+
+    public Flux<WaterBoxAssignmentResponse> userAssignments(String userId, FieldSelection fields) {
+        ResponseProjection.Selection<WaterBoxAssignmentResponse> selection = ASSIGNMENT.select(fields);
+        String sql = "SELECT " + selection.sql(null) + " FROM water_box_assignments WHERE user_id = :userId ORDER BY id";
+        return byUser(sql, userId, selection);
+    }
+
+    // Transferencias en las que el usuario cedió o recibió la caja (idx_transfers_old_assignment / idx_transfers_new_assignment)
+    public Flux<WaterBoxTransferResponse> userTransfers(String userId, FieldSelection fields) {
+        ResponseProjection.Selection<WaterBoxTransferResponse> selection = TRANSFER.select(fields);
+        String sql = "SELECT " + selection.sql("t") + " FROM water_box_transfers t " +
+                "WHERE t.old_assignment_id IN (SELECT id FROM water_box_assignments WHERE user_id = :userId) " +
+                "OR t.new_assignment_id IN (SELECT id FROM water_box_assignments WHERE user_id = :userId) ORDER BY t.id";
+        return byUser(sql, userId, selection);
+    }
+
+    // Usa idx_water_boxes_status_id / idx_water_boxes_org_status_id
+    private Flux<WaterBoxResponse> waterBoxes(String organizationId, Status status, FieldSelection fields, PageQuery pageQuery) {
+        ResponseProjection.Selection<WaterBoxResponse> selection = WATER_BOX.select(fields);
+        String sql = "SELECT " + selection.sql(null) + " FROM water_boxes WHERE " +
+                (organizationId == null ? "" : "organization_id = :organizationId AND ") +
+                "status = :status" + keyset(null, pageQuery);
+        return query(sql, organizationId, status, pageQuery, selection);
+    }
+
+    // Las asignaciones no guardan la organización: se filtra por la caja de agua a la que pertenecen
+    private Flux<WaterBoxAssignmentResponse> assignments(String organizationId, Status status, FieldSelection fields, PageQuery pageQuery) {
+        ResponseProjection.Selection<WaterBoxAssignmentResponse> selection = ASSIGNMENT.select(fields);
+        String sql = organizationId == null
+                ? "SELECT " + selection.sql(null) + " FROM water_box_assignments WHERE status = :status" + keyset(null, pageQuery)
+                : "SELECT " + selection.sql("a") + " FROM water_box_assignments a JOIN water_boxes b ON b.id = a.water_box_id " +
+                  "WHERE b.organization_id = :organizationId AND a.status = :status" + keyset("a", pageQuery);
+        return query(sql, organizationId, status, pageQuery, selection);
+    }
+
+    private Flux<WaterBoxTransferResponse> transfers(String organizationId, FieldSelection fields, PageQuery pageQuery) {
+        ResponseProjection.Selection<WaterBoxTransferResponse> selection = TRANSFER.select(fields);
+        String sql = organizationId == null
+                ? "SELECT " + selection.sql(null) + " FROM water_box_transfers WHERE TRUE" + keyset(null, pageQuery)
+                : "SELECT " + selection.sql("t") + " FROM water_box_transfers t JOIN water_boxes b ON b.id = t.water_box_id " +
+                  "WHERE b.organization_id = :organizationId" + keyset("t", pageQuery);
+        return query(sql, organizationId, null, pageQuery, selection);
+    }
+
+    private static String keyset(String alias, PageQuery pageQuery) {
+        String id = alias == null ? "id" : alias + ".id";
+        return pageQuery == null
+                ? " ORDER BY " + id
+                : " AND " + id + " > :afterId ORDER BY " + id + " LIMIT :limit";
+    }
+
+    private <T extends SparseResponse> Flux<T> query(String sql, String organizationId, Status status, PageQuery pageQuery,
+                              ResponseProjection.Selection<T> selection) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        if (organizationId != null) {
+            spec = spec.bind("organizationId", organizationId);
+        }
+        if (status != null) {
+            spec = spec.bind("status", status.name());
+        }
+        if (pageQuery != null) {
+            return spec.bind("afterId", pageQuery.getAfterId())
+                    .bind("limit", pageQuery.fetchLimit())
+                    .map((row, metadata) -> selection.read(row))
+                    .all();
+        }
+        return spec.filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> selection.read(row))
+                .all()
+                .limitRate(fetchSize);
+    }
+
+    private <T extends SparseResponse> Flux<T> byUser(String sql, String userId, ResponseProjection.Selection<T> selection) {
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .map((row, metadata) -> selection.read(row))
+                .all();
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String value) {
+        return value == null ? null : Enum.valueOf(type, value);
+    }
+}
@@ -0,0 +1,83 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import io.r2dbc.spi.Row;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.SparseResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Lectura de filas directo al DTO de respuesta, sin pasar por la entidad.
+ * Cada campo del JSON se asocia a una columna; con una selección de campos solo
+ * se piden esas columnas en el SELECT y solo se llenan esos atributos (el id
+ * siempre se incluye porque lo usa el cursor de paginación). Los DTO leídos con una
+ * selección quedan marcados como parciales para que el JSON omita los no pedidos;
+ * sin selección se serializan completos, con sus null.
+ */
+public final class ResponseProjection<T extends SparseResponse> {
+
+    private final Supplier<T> factory;
+    private final Map<String, Column<T>> columns = new LinkedHashMap<>();
+
+    private ResponseProjection(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    public static <T extends SparseResponse> ResponseProjection<T> of(Supplier<T> factory) {
+        return new ResponseProjection<>(factory);
+    }
+
+    public ResponseProjection<T> field(String field, String column, BiConsumer<T, Row> reader) {
+        columns.put(field, new Column<>(column, reader));
+        return this;
+    }
+
+    public Selection<T> select(FieldSelection selection) {
+        if (selection.isAll()) {
+            return new Selection<>(factory, List.copyOf(columns.values()), false);
+        }
+        List<Column<T>> selected = new ArrayList<>();
+        selected.add(columns.get("id"));
+        for (String field : selection.getFields()) {
+            Column<T> column = columns.get(field);
+            if (column == null) {
+                throw new BadRequestException("El campo '" + field + "' no existe. Campos disponibles: "
+                        + String.join(", ", columns.keySet()) + ".");
+            }
+            if (!selected.contains(column)) {
+                selected.add(column);
+            }
+        }
+        return new Selection<>(factory, selected, true);
+    }
+
+    public record Column<T>(String name, BiConsumer<T, Row> reader) {
+    }
+
+    public record Selection<T extends SparseResponse>(Supplier<T> factory, List<Column<T>> columns, boolean sparse) {
+
+        /**
+         * Lista de columnas para el SELECT, con el alias de la tabla si se indica
+         */
+        public String sql(String alias) {
+            String prefix = alias == null ? "" : alias + ".";
+            return columns.stream().map(column -> prefix + column.name()).collect(Collectors.joining(", "));
+        }
+
+        public T read(Row row) {
+            T target = factory.get();
+            target.setSparse(sparse);
+            for (Column<T> column : columns) {
+                column.reader().accept(target, row);
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Consultas del reporte de ingresos por organización y tipo de caja.
+ * streamAssignments recorre las asignaciones que se cruzan con el rango con un cursor
+ * (fetchSize) para agregarlas en memoria acotada; la tarifa ya llega en céntimos.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RevenueQueryRepository {
+
+    private static final String ASSIGNMENTS_SQL = """
+            SELECT b.organization_id, b.box_type, ROUND(a.monthly_fee * 100)::BIGINT AS fee_cents,
+                   a.start_date, a.end_date
+            FROM water_box_assignments a JOIN water_boxes b ON b.id = a.water_box_id
+            WHERE a.start_date < :toExclusive AND (a.end_date IS NULL OR a.end_date >= :fromMonth)
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.reports.revenue.fetch-size:1000}")
+    private int fetchSize;
+
+    public Flux<AssignmentRow> streamAssignments(String organizationId, YearMonth from, YearMonth to) {
+        String sql = ASSIGNMENTS_SQL + (organizationId == null ? "" : " AND b.organization_id = :organizationId");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("fromMonth", from.atDay(1).atStartOfDay())
+                .bind("toExclusive", to.plusMonths(1).atDay(1).atStartOfDay());
+        if (organizationId != null) {
+            spec = spec.bind("organizationId", organizationId);
+        }
+        return spec.filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> new AssignmentRow(
+                        row.get("organization_id", String.class),
+                        row.get("box_type", String.class),
+                        row.get("fee_cents", Long.class),
+                        row.get("start_date", LocalDateTime.class),
+                        row.get("end_date", LocalDateTime.class)))
+                .all()
+                .limitRate(fetchSize);
+    }
+
+    public record AssignmentRow(String organizationId, String boxType, long feeCents,
+                                LocalDateTime startDate, LocalDateTime endDate) {
+    }
+}
@@ -0,0 +1,75 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregados por organización para sembrar y reconciliar los contadores del resumen.
+ * Una sola consulta: cajas por estado y tipo, asignaciones activas con la suma de
+ * tarifas (en céntimos) y transferencias desde el inicio del mes.
+ * Los mismos totales de una sola caja sirven para moverlos cuando cambia de organización.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SummaryQueryRepository {
+
+    private static final String AGGREGATE_SQL = """
+            SELECT organization_id, 'BOX' AS kind, status, box_type, COUNT(*) AS total, 0::BIGINT AS fee_cents
+            FROM water_boxes
+            GROUP BY organization_id, status, box_type
+            UNION ALL
+            SELECT b.organization_id, 'ASSIGNMENT', NULL, NULL, COUNT(*), COALESCE(SUM(ROUND(a.monthly_fee * 100)), 0)::BIGINT
+            FROM water_box_assignments a JOIN water_boxes b ON b.id = a.water_box_id
+            WHERE a.status = 'ACTIVE'
+            GROUP BY b.organization_id
+            UNION ALL
+            SELECT b.organization_id, 'TRANSFER', NULL, NULL, COUNT(*), 0::BIGINT
+            FROM water_box_transfers t JOIN water_boxes b ON b.id = t.water_box_id
+            WHERE t.created_at >= :monthStart
+            GROUP BY b.organization_id
+            """;
+
+    private static final String BOX_TOTALS_SQL = """
+            SELECT (SELECT COUNT(*) FROM water_box_assignments WHERE water_box_id = :waterBoxId AND status = 'ACTIVE') AS active_assignments,
+                   (SELECT COALESCE(SUM(ROUND(monthly_fee * 100)), 0)::BIGINT FROM water_box_assignments
+                    WHERE water_box_id = :waterBoxId AND status = 'ACTIVE') AS fee_cents,
+                   (SELECT COUNT(*) FROM water_box_transfers WHERE water_box_id = :waterBoxId AND created_at >= :monthStart) AS transfers
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<SummaryRow> aggregate(LocalDateTime monthStart) {
+        return databaseClient.sql(AGGREGATE_SQL)
+                .bind("monthStart", monthStart)
+                .map((row, metadata) -> new SummaryRow(
+                        row.get("organization_id", String.class),
+                        row.get("kind", String.class),
+                        row.get("status", String.class),
+                        row.get("box_type", String.class),
+                        row.get("total", Long.class),
+                        row.get("fee_cents", Long.class)))
+                .all();
+    }
+
+    public Mono<BoxTotals> boxTotals(Long waterBoxId, LocalDateTime monthStart) {
+        return databaseClient.sql(BOX_TOTALS_SQL)
+                .bind("waterBoxId", waterBoxId)
+                .bind("monthStart", monthStart)
+                .map((row, metadata) -> new BoxTotals(
+                        row.get("active_assignments", Long.class),
+                        row.get("fee_cents", Long.class),
+                        row.get("transfers", Long.class)))
+                .one();
+    }
+
+    public record SummaryRow(String organizationId, String kind, String status, String boxType, long total, long feeCents) {
+    }
+
+    public record BoxTotals(long activeAssignments, long feeCents, long transfers) {
+    }
+}
@@ -0,0 +1,72 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBox;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escrituras masivas de cajas de agua.
+ * Cada lote se inserta con un único INSERT multi-fila (un round-trip y una
+ * sentencia atómica por lote) y RETURNING devuelve las filas con su ID generado.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WaterBoxBulkRepository {
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    public Flux<WaterBox> insertAll(List<WaterBox> waterBoxes, LocalDateTime createdAt) {
+        if (waterBoxes.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO water_boxes " +
+                "(organization_id, box_code, box_type, installation_date, current_assignment_id, status, created_at, updated_at) VALUES ");
+        for (int i = 0; i < waterBoxes.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:organizationId").append(i)
+                    .append(", :boxCode").append(i)
+                    .append(", :boxType").append(i)
+                    .append(", :installationDate").append(i)
+                    .append(", :currentAssignmentId").append(i)
+                    .append(", 'ACTIVE', :createdAt, :createdAt)");
+        }
+        sql.append(" RETURNING *");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("createdAt", createdAt);
+        for (int i = 0; i < waterBoxes.size(); i++) {
+            WaterBox waterBox = waterBoxes.get(i);
+            spec = spec.bind("organizationId" + i, waterBox.getOrganizationId())
+                    .bind("boxCode" + i, waterBox.getBoxCode())
+                    .bind("boxType" + i, waterBox.getBoxType().name())
+                    .bind("installationDate" + i, waterBox.getInstallationDate());
+            spec = waterBox.getCurrentAssignmentId() == null
+                    ? spec.bindNull("currentAssignmentId" + i, Long.class)
+                    : spec.bind("currentAssignmentId" + i, waterBox.getCurrentAssignmentId());
+        }
+        return spec.map((row, metadata) -> converter.read(WaterBox.class, row, metadata)).all();
+    }
+
+    /**
+     * Códigos de la lista que ya están registrados (una sola consulta para todo el lote)
+     */
+    public Flux<String> findExistingBoxCodes(Collection<String> boxCodes) {
+        if (boxCodes.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("SELECT box_code FROM water_boxes WHERE box_code = ANY(:boxCodes)")
+                .bind("boxCodes", boxCodes.toArray(new String[0]))
+                .map((row, metadata) -> row.get("box_code", String.class))
+                .all();
+    }
+}
@@ -0,0 +1,126 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxTransfer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryEntry;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Historial de propiedad de una caja de agua en una sola consulta (CTE recursiva).
+ * La cadena avanza por transferencias: después de la transferencia que llevó la caja a
+ * una asignación sigue la primera que salió de ella (links.next_id). Como los id de
+ * transferencia solo crecen, la recursión termina aunque una asignación restaurada
+ * vuelva a recibir la caja, y esa visita repetida queda como un paso más.
+ * Una cadena empieza en la asignación de origen de cada transferencia que no continúa
+ * a otra; las asignaciones sin transferencias forman su propia cadena de un paso.
+ * Se apoya en idx_assignments_water_box y idx_transfers_water_box.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WaterBoxHistoryRepository {
+
+    private static final String HISTORY_SQL = """
+            WITH RECURSIVE transfers AS (
+                SELECT id, old_assignment_id, new_assignment_id FROM water_box_transfers WHERE water_box_id = :waterBoxId
+            ),
+            links AS (
+                SELECT p.id,
+                       (SELECT u.id FROM transfers u
+                        WHERE u.old_assignment_id = p.new_assignment_id AND u.id > p.id
+                          AND NOT EXISTS (SELECT 1 FROM transfers q
+                                          WHERE q.new_assignment_id = p.new_assignment_id AND q.id > p.id AND q.id < u.id)
+                        ORDER BY u.id LIMIT 1) AS next_id
+                FROM transfers p
+            ),
+            chain AS (
+                SELECT a.id AS assignment_id, CAST(NULL AS BIGINT) AS transfer_id, a.id AS chain_id, 0 AS step,
+                       CAST(NULL AS BIGINT) AS next_id
+                FROM water_box_assignments a
+                WHERE a.water_box_id = :waterBoxId
+                  AND NOT EXISTS (SELECT 1 FROM transfers t WHERE a.id IN (t.old_assignment_id, t.new_assignment_id))
+                UNION ALL
+                SELECT t.old_assignment_id, NULL, t.old_assignment_id, 0, t.id
+                FROM transfers t
+                WHERE NOT EXISTS (SELECT 1 FROM links l WHERE l.next_id = t.id)
+                UNION ALL
+                SELECT t.new_assignment_id, t.id, c.chain_id, c.step + 1, l.next_id
+                FROM chain c
+                JOIN transfers t ON t.id = c.next_id
+                JOIN links l ON l.id = t.id
+            )
+            SELECT c.chain_id, c.step,
+                   a.id AS a_id, a.water_box_id AS a_water_box_id, a.user_id AS a_user_id, a.start_date AS a_start_date,
+                   a.end_date AS a_end_date, a.monthly_fee AS a_monthly_fee, a.status AS a_status,
+                   a.created_at AS a_created_at, a.transfer_id AS a_transfer_id,
+                   t.id AS t_id, t.old_assignment_id AS t_old_assignment_id, t.new_assignment_id AS t_new_assignment_id,
+                   t.transfer_reason AS t_transfer_reason, t.documents AS t_documents, t.created_at AS t_created_at
+            FROM chain c
+            JOIN water_box_assignments a ON a.id = c.assignment_id
+            LEFT JOIN water_box_transfers t ON t.id = c.transfer_id
+            ORDER BY c.chain_id, c.step
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Asignación inicial de cada cadena y, en los pasos siguientes, la transferencia
+     * seguida de la asignación que la recibió
+     */
+    public Flux<WaterBoxHistoryEntry> findHistory(Long waterBoxId) {
+        return databaseClient.sql(HISTORY_SQL)
+                .bind("waterBoxId", waterBoxId)
+                .map((row, metadata) -> toEntries(waterBoxId, row))
+                .all()
+                .flatMapIterable(entries -> entries);
+    }
+
+    private static List<WaterBoxHistoryEntry> toEntries(Long waterBoxId, Row row) {
+        Long chainId = row.get("chain_id", Long.class);
+        Integer step = row.get("step", Integer.class);
+        WaterBoxHistoryEntry assignment = WaterBoxHistoryEntry.builder()
+                .type("ASSIGNMENT")
+                .chainId(chainId)
+                .step(step)
+                .assignment(WaterBoxAssignmentResponse.builder()
+                        .id(row.get("a_id", Long.class))
+                        .waterBoxId(row.get("a_water_box_id", Long.class))
+                        .userId(row.get("a_user_id", String.class))
+                        .startDate(row.get("a_start_date", LocalDateTime.class))
+                        .endDate(row.get("a_end_date", LocalDateTime.class))
+                        .monthlyFee(row.get("a_monthly_fee", BigDecimal.class))
+                        .status(Status.valueOf(row.get("a_status", String.class)))
+                        .createdAt(row.get("a_created_at", LocalDateTime.class))
+                        .transferId(row.get("a_transfer_id", Long.class))
+                        .build())
+                .build();
+        Long transferId = row.get("t_id", Long.class);
+        if (transferId == null) {
+            return List.of(assignment);
+        }
+        WaterBoxHistoryEntry transfer = WaterBoxHistoryEntry.builder()
+                .type("TRANSFER")
+                .chainId(chainId)
+                .step(step)
+                .transfer(WaterBoxTransferResponse.builder()
+                        .id(transferId)
+                        .waterBoxId(waterBoxId)
+                        .oldAssignmentId(row.get("t_old_assignment_id", Long.class))
+                        .newAssignmentId(row.get("t_new_assignment_id", Long.class))
+                        .transferReason(row.get("t_transfer_reason", String.class))
+                        .documents(WaterBoxTransfer.parseDocuments(row.get("t_documents", String.class)))
+                        .createdAt(row.get("t_created_at", LocalDateTime.class))
+                        .build())
+                .build();
+        return List.of(transfer, assignment);
+    }
+}
@@ -0,0 +1,114 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxTransfer;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Transferencia de una caja de agua en una sola sentencia (CTE con escritura).
+ * Las validaciones se hacen en Postgres sobre las filas bloqueadas con FOR UPDATE
+ * y, solo si todas pasan, se inserta la transferencia, se inactiva la asignación
+ * antigua y se mueve current_assignment_id de la caja. La columna "outcome" indica
+ * qué validación falló (o OK).
+ * También devuelve la organización de la caja y la tarifa de la asignación antigua.
+ * Los tres UPDATE incrementan "version", de modo que una escritura optimista concurrente
+ * sobre la misma caja o asignación detecta el cambio. La asignación nueva también se
+ * bloquea y se versiona aunque solo cambie updated_at: si otro nodo la inactiva mientras
+ * tanto, o espera al bloqueo y ve NEW_INACTIVE, o su save falla por versión y reintenta
+ * leyendo la caja ya transferida.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WaterBoxTransferCommandRepository {
+
+    private static final String TRANSFER_SQL = """
+            WITH box AS (
+                SELECT id, organization_id, status, current_assignment_id FROM water_boxes WHERE id = :waterBoxId FOR UPDATE
+            ),
+            old_assignment AS (
+                SELECT id, water_box_id, status, monthly_fee FROM water_box_assignments WHERE id = :oldAssignmentId FOR UPDATE
+            ),
+            new_assignment AS (
+                SELECT id, water_box_id, status FROM water_box_assignments WHERE id = :newAssignmentId FOR UPDATE
+            ),
+            validation AS (
+                SELECT CASE
+                    WHEN NOT EXISTS (SELECT 1 FROM box) THEN 'BOX_NOT_FOUND'
+                    WHEN (SELECT status FROM box) = 'INACTIVE' THEN 'BOX_INACTIVE'
+                    WHEN NOT EXISTS (SELECT 1 FROM old_assignment) THEN 'OLD_NOT_FOUND'
+                    WHEN (SELECT water_box_id FROM old_assignment) <> :waterBoxId THEN 'OLD_OTHER_BOX'
+                    WHEN (SELECT status FROM old_assignment) = 'INACTIVE' THEN 'OLD_INACTIVE'
+                    WHEN (SELECT current_assignment_id FROM box) IS DISTINCT FROM :oldAssignmentId THEN 'OLD_NOT_CURRENT'
+                    WHEN NOT EXISTS (SELECT 1 FROM new_assignment) THEN 'NEW_NOT_FOUND'
+                    WHEN (SELECT water_box_id FROM new_assignment) <> :waterBoxId THEN 'NEW_OTHER_BOX'
+                    WHEN (SELECT status FROM new_assignment) = 'INACTIVE' THEN 'NEW_INACTIVE'
+                    WHEN :newAssignmentId = :oldAssignmentId THEN 'SAME_ASSIGNMENT'
+                    ELSE 'OK'
+                END AS outcome
+            ),
+            transfer AS (
+                INSERT INTO water_box_transfers (water_box_id, old_assignment_id, new_assignment_id, transfer_reason, documents, created_at)
+                SELECT :waterBoxId, :oldAssignmentId, :newAssignmentId, :transferReason, :documents, :createdAt
+                FROM validation WHERE outcome = 'OK'
+                RETURNING *
+            ),
+            old_assignment_update AS (
+                UPDATE water_box_assignments a
+                SET status = 'INACTIVE', end_date = :createdAt, transfer_id = t.id, updated_at = :createdAt, version = a.version + 1
+                FROM transfer t
+                WHERE a.id = t.old_assignment_id
+                RETURNING a.id
+            ),
+            new_assignment_update AS (
+                UPDATE water_box_assignments a
+                SET updated_at = :createdAt, version = a.version + 1
+                FROM transfer t
+                WHERE a.id = t.new_assignment_id
+                RETURNING a.id
+            ),
+            box_update AS (
+                UPDATE water_boxes b
+                SET current_assignment_id = t.new_assignment_id, updated_at = :createdAt, version = b.version + 1
+                FROM transfer t
+                WHERE b.id = t.water_box_id
+                RETURNING b.id
+            )
+            SELECT v.outcome, (SELECT organization_id FROM box) AS box_organization_id,
+                   (SELECT monthly_fee FROM old_assignment) AS old_monthly_fee, t.*
+            FROM validation v
+            LEFT JOIN transfer t ON TRUE
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    public Mono<TransferOutcome> transfer(WaterBoxTransfer transfer) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(TRANSFER_SQL)
+                .bind("waterBoxId", transfer.getWaterBoxId())
+                .bind("oldAssignmentId", transfer.getOldAssignmentId())
+                .bind("newAssignmentId", transfer.getNewAssignmentId())
+                .bind("transferReason", transfer.getTransferReason())
+                .bind("createdAt", transfer.getCreatedAt());
+        spec = transfer.getDocumentsJson() == null
+                ? spec.bindNull("documents", String.class)
+                : spec.bind("documents", transfer.getDocumentsJson());
+        return spec.map((row, metadata) -> {
+                    String outcome = row.get("outcome", String.class);
+                    WaterBoxTransfer saved = "OK".equals(outcome) ? converter.read(WaterBoxTransfer.class, row, metadata) : null;
+                    return new TransferOutcome(outcome, saved,
+                            row.get("box_organization_id", String.class), row.get("old_monthly_fee", BigDecimal.class));
+                })
+                .one();
+    }
+
+    /**
+     * organizationId y oldMonthlyFee permiten actualizar los contadores del resumen sin otra consulta
+     */
+    public record TransferOutcome(String outcome, WaterBoxTransfer transfer, String organizationId, BigDecimal oldMonthlyFee) {
+    }
+}
@@ -110,11 +110,11 @@ public class UserInfoController {
     @GetMapping("/admin-or-client")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CLIENT')")
     public Mono<String> adminOrClientEndpoint() {
-        return jwtService.getCurrentUserInfo()
-                .map(userInfo -> String.format(
+        return jwtService.getCurrentUser()
+                .map(user -> String.format(
                     "Hola %s, tienes uno de estos roles: %s", 
-                    userInfo.getUsername(), 
-                    userInfo.getRoles()
+                    user.getUsername(), 
+                    user.getRoles()
                 ));
     }
 }
\ No newline at end of file
@@ -2,21 +2,51 @@ package pe.edu.vallegrande.ms_infraestructura.infrastructure.rest.admin;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import pe.edu.vallegrande.ms_infraestructura.application.services.IExportService;
+import pe.edu.vallegrande.ms_infraestructura.application.services.IRevenueReportService;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxService;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxAssignmentService;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxTransferService;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxRequest;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxAssignmentRequest;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxTransferRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.BulkCreateResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.ChangeEvent;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.OrganizationSummaryResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.RevenueReportResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.NotFoundException;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ExportQueryRepository.ExportEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeFeed;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ConditionalGet;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.CurrentUser;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.IdempotencyService;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.OrganizationCounters;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
@@ -25,34 +55,68 @@ public class AdminRest {
     private final IWaterBoxService waterBoxService;
     private final IWaterBoxAssignmentService waterBoxAssignmentService;
     private final IWaterBoxTransferService waterBoxTransferService;
+    private final ConditionalGet conditionalGet;
+    private final IdempotencyService idempotencyService;
+    private final OrganizationCounters organizationCounters;
+    private final IRevenueReportService revenueReportService;
+    private final IExportService exportService;
+    private final ChangeFeed changeFeed;
 
     // ===============================
     // GESTIÓN DE WATER BOXES
     // ===============================
 
-    @GetMapping("/water-boxes/active")
+    @GetMapping(value = "/water-boxes/active", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<PageResponse<WaterBoxResponse>> getAllActiveWaterBoxes(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.WATER_BOXES, () -> waterBoxService.getAllActive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-boxes/active", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public Flux<WaterBoxResponse> streamAllActiveWaterBoxes(@RequestParam(required = false) String fields) {
+        return waterBoxService.streamAllActive(FieldSelection.of(fields));
+    }
+
+    @GetMapping(value = "/water-boxes/inactive", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
-    public Flux<WaterBoxResponse> getAllActiveWaterBoxes() {
-        return waterBoxService.getAllActive();
+    public Mono<PageResponse<WaterBoxResponse>> getAllInactiveWaterBoxes(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.WATER_BOXES, () -> waterBoxService.getAllInactive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
     }
 
-    @GetMapping("/water-boxes/inactive")
+    @GetMapping(value = "/water-boxes/inactive", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     @PreAuthorize("hasRole('ADMIN')")
-    public Flux<WaterBoxResponse> getAllInactiveWaterBoxes() {
-        return waterBoxService.getAllInactive();
+    public Flux<WaterBoxResponse> streamAllInactiveWaterBoxes(@RequestParam(required = false) String fields) {
+        return waterBoxService.streamAllInactive(FieldSelection.of(fields));
     }
 
     @GetMapping("/water-boxes/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public Mono<WaterBoxResponse> getWaterBoxById(@PathVariable Long id) {
-        return waterBoxService.getById(id);
+    public Mono<WaterBoxResponse> getWaterBoxById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditionalGet.global(exchange, ChangeEntity.WATER_BOXES, () -> waterBoxService.getById(id));
+    }
+
+    @GetMapping("/water-boxes/{id}/history")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<WaterBoxHistoryResponse> getWaterBoxHistory(@PathVariable Long id) {
+        return waterBoxService.getHistory(id);
     }
 
     @PostMapping("/water-boxes")
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('ADMIN')")
-    public Mono<WaterBoxResponse> createWaterBox(@Valid @RequestBody WaterBoxRequest request) {
-        return waterBoxService.save(request);
+    public Mono<WaterBoxResponse> createWaterBox(@Valid @RequestBody WaterBoxRequest request,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/admin/water-boxes", request, WaterBoxResponse.class,
+                waterBoxService.save(request));
+    }
+
+    @PostMapping("/water-boxes/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<BulkCreateResponse> createWaterBoxes(@RequestBody List<WaterBoxRequest> requests,
+                                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/admin/water-boxes/bulk", requests, BulkCreateResponse.class,
+                waterBoxService.saveAll(requests));
     }
 
     @PutMapping("/water-boxes/{id}")
@@ -78,29 +142,43 @@ public class AdminRest {
     // GESTIÓN DE WATER BOX ASSIGNMENTS
     // ===============================
 
-    @GetMapping("/water-box-assignments/active")
+    @GetMapping(value = "/water-box-assignments/active", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<PageResponse<WaterBoxAssignmentResponse>> getAllActiveAssignments(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.ASSIGNMENTS, () -> waterBoxAssignmentService.getAllActive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-box-assignments/active", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     @PreAuthorize("hasRole('ADMIN')")
-    public Flux<WaterBoxAssignmentResponse> getAllActiveAssignments() {
-        return waterBoxAssignmentService.getAllActive();
+    public Flux<WaterBoxAssignmentResponse> streamAllActiveAssignments(@RequestParam(required = false) String fields) {
+        return waterBoxAssignmentService.streamAllActive(FieldSelection.of(fields));
     }
 
-    @GetMapping("/water-box-assignments/inactive")
+    @GetMapping(value = "/water-box-assignments/inactive", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
-    public Flux<WaterBoxAssignmentResponse> getAllInactiveAssignments() {
-        return waterBoxAssignmentService.getAllInactive();
+    public Mono<PageResponse<WaterBoxAssignmentResponse>> getAllInactiveAssignments(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.ASSIGNMENTS, () -> waterBoxAssignmentService.getAllInactive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-box-assignments/inactive", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public Flux<WaterBoxAssignmentResponse> streamAllInactiveAssignments(@RequestParam(required = false) String fields) {
+        return waterBoxAssignmentService.streamAllInactive(FieldSelection.of(fields));
     }
 
     @GetMapping("/water-box-assignments/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public Mono<WaterBoxAssignmentResponse> getAssignmentById(@PathVariable Long id) {
-        return waterBoxAssignmentService.getById(id);
+    public Mono<WaterBoxAssignmentResponse> getAssignmentById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditionalGet.global(exchange, ChangeEntity.ASSIGNMENTS, () -> waterBoxAssignmentService.getById(id));
     }
 
     @PostMapping("/water-box-assignments")
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('ADMIN')")
-    public Mono<WaterBoxAssignmentResponse> createAssignment(@Valid @RequestBody WaterBoxAssignmentRequest request) {
-        return waterBoxAssignmentService.save(request);
+    public Mono<WaterBoxAssignmentResponse> createAssignment(@Valid @RequestBody WaterBoxAssignmentRequest request,
+                                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/admin/water-box-assignments", request, WaterBoxAssignmentResponse.class,
+                waterBoxAssignmentService.save(request));
     }
 
     @PutMapping("/water-box-assignments/{id}")
@@ -126,22 +204,86 @@ public class AdminRest {
     // GESTIÓN DE WATER BOX TRANSFERS
     // ===============================
 
-    @GetMapping("/water-box-transfers")
+    @GetMapping(value = "/water-box-transfers", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
-    public Flux<WaterBoxTransferResponse> getAllTransfers() {
-        return waterBoxTransferService.getAll();
+    public Mono<PageResponse<WaterBoxTransferResponse>> getAllTransfers(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.TRANSFERS, () -> waterBoxTransferService.getAll(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-box-transfers", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public Flux<WaterBoxTransferResponse> streamAllTransfers(@RequestParam(required = false) String fields) {
+        return waterBoxTransferService.streamAll(FieldSelection.of(fields));
     }
 
     @GetMapping("/water-box-transfers/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public Mono<WaterBoxTransferResponse> getTransferById(@PathVariable Long id) {
-        return waterBoxTransferService.getById(id);
+    public Mono<WaterBoxTransferResponse> getTransferById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditionalGet.global(exchange, ChangeEntity.TRANSFERS, () -> waterBoxTransferService.getById(id));
     }
 
     @PostMapping("/water-box-transfers")
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('ADMIN')")
-    public Mono<WaterBoxTransferResponse> createTransfer(@Valid @RequestBody WaterBoxTransferRequest request) {
-        return waterBoxTransferService.save(request);
+    public Mono<WaterBoxTransferResponse> createTransfer(@Valid @RequestBody WaterBoxTransferRequest request,
+                                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/admin/water-box-transfers", request, WaterBoxTransferResponse.class,
+                waterBoxTransferService.save(request));
+    }
+
+    // ===============================
+    // RESUMEN DE LA ORGANIZACIÓN
+    // ===============================
+
+    @GetMapping("/summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<OrganizationSummaryResponse> getSummary() {
+        return CurrentUser.current()
+                .map(user -> organizationCounters.snapshot(user.organizationScope()));
+    }
+
+    // ===============================
+    // REPORTES
+    // ===============================
+
+    @GetMapping("/reports/revenue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<RevenueReportResponse> getRevenueReport(@RequestParam YearMonth from, @RequestParam YearMonth to) {
+        return revenueReportService.getRevenue(from, to);
+    }
+
+    // ===============================
+    // EXPORTACIÓN CSV
+    // ===============================
+
+    @GetMapping("/export/{entity}.csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<Void> exportCsv(@PathVariable String entity, @RequestParam(required = false) String organizationId, @RequestParam(required = false) Status status,
+                                ServerHttpRequest request, ServerHttpResponse response) {
+        ExportEntity exportEntity = ExportEntity.fromPath(entity)
+                .orElseThrow(() -> new NotFoundException("No existe la exportación " + entity + ".csv"));
+        // gzip al vuelo solo si el cliente lo acepta (curl --compressed, navegadores)
+        boolean gzip = request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream()
+                .anyMatch(value -> value.toLowerCase().contains("gzip"));
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(entity + ".csv").build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.writeWith(exportService.exportCsv(exportEntity, organizationId, status, response.bufferFactory(), gzip));
+    }
+
+    // ===============================
+    // CAMBIOS EN VIVO
+    // ===============================
+
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public Flux<ServerSentEvent<ChangeEvent>> streamChanges() {
+        // Solo un SUPER_ADMIN sin organización recibe los cambios de todas
+        return CurrentUser.current()
+                .flatMapMany(user -> changeFeed.stream(user.organizationScope()));
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,21 @@
 package pe.edu.vallegrande.ms_infraestructura.infrastructure.rest.client;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxService;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxAssignmentService;
 import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxTransferService;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.FieldSelection;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ConditionalGet;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -20,64 +27,117 @@ public class ClientRest {
     private final IWaterBoxService waterBoxService;
     private final IWaterBoxAssignmentService waterBoxAssignmentService;
     private final IWaterBoxTransferService waterBoxTransferService;
+    private final ConditionalGet conditionalGet;
+
+    // ===============================
+    // DATOS DEL USUARIO AUTENTICADO
+    // ===============================
+
+    @GetMapping("/me/water-boxes")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Flux<WaterBoxResponse> getMyWaterBoxes(@RequestParam(required = false) String fields) {
+        return waterBoxService.getMine(FieldSelection.of(fields));
+    }
+
+    @GetMapping("/me/assignments")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Flux<WaterBoxAssignmentResponse> getMyAssignments(@RequestParam(required = false) String fields) {
+        return waterBoxAssignmentService.getMine(FieldSelection.of(fields));
+    }
+
+    @GetMapping("/me/transfers")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Flux<WaterBoxTransferResponse> getMyTransfers(@RequestParam(required = false) String fields) {
+        return waterBoxTransferService.getMine(FieldSelection.of(fields));
+    }
 
     // ===============================
     // GESTIÓN DE WATER BOXES
     // ===============================
 
-    @GetMapping("/water-boxes/active")
+    @GetMapping(value = "/water-boxes/active", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Flux<WaterBoxResponse> getAllActiveWaterBoxes() {
-        return waterBoxService.getAllActive();
+    public Mono<PageResponse<WaterBoxResponse>> getAllActiveWaterBoxes(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.WATER_BOXES, () -> waterBoxService.getAllActive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
     }
 
-    @GetMapping("/water-boxes/inactive")
+    @GetMapping(value = "/water-boxes/active", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Flux<WaterBoxResponse> getAllInactiveWaterBoxes() {
-        return waterBoxService.getAllInactive();
+    public Flux<WaterBoxResponse> streamAllActiveWaterBoxes(@RequestParam(required = false) String fields) {
+        return waterBoxService.streamAllActive(FieldSelection.of(fields));
+    }
+
+    @GetMapping(value = "/water-boxes/inactive", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Mono<PageResponse<WaterBoxResponse>> getAllInactiveWaterBoxes(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.WATER_BOXES, () -> waterBoxService.getAllInactive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-boxes/inactive", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Flux<WaterBoxResponse> streamAllInactiveWaterBoxes(@RequestParam(required = false) String fields) {
+        return waterBoxService.streamAllInactive(FieldSelection.of(fields));
     }
 
     @GetMapping("/water-boxes/{id}")
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Mono<WaterBoxResponse> getWaterBoxById(@PathVariable Long id) {
-        return waterBoxService.getById(id);
+    public Mono<WaterBoxResponse> getWaterBoxById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditionalGet.global(exchange, ChangeEntity.WATER_BOXES, () -> waterBoxService.getById(id));
     }
 
     // ===============================
     // GESTIÓN DE WATER BOX ASSIGNMENTS
     // ===============================
 
-    @GetMapping("/water-box-assignments/active")
+    @GetMapping(value = "/water-box-assignments/active", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Mono<PageResponse<WaterBoxAssignmentResponse>> getAllActiveAssignments(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.ASSIGNMENTS, () -> waterBoxAssignmentService.getAllActive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-box-assignments/active", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Flux<WaterBoxAssignmentResponse> getAllActiveAssignments() {
-        return waterBoxAssignmentService.getAllActive();
+    public Flux<WaterBoxAssignmentResponse> streamAllActiveAssignments(@RequestParam(required = false) String fields) {
+        return waterBoxAssignmentService.streamAllActive(FieldSelection.of(fields));
     }
 
-    @GetMapping("/water-box-assignments/inactive")
+    @GetMapping(value = "/water-box-assignments/inactive", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Flux<WaterBoxAssignmentResponse> getAllInactiveAssignments() {
-        return waterBoxAssignmentService.getAllInactive();
+    public Mono<PageResponse<WaterBoxAssignmentResponse>> getAllInactiveAssignments(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.ASSIGNMENTS, () -> waterBoxAssignmentService.getAllInactive(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-box-assignments/inactive", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Flux<WaterBoxAssignmentResponse> streamAllInactiveAssignments(@RequestParam(required = false) String fields) {
+        return waterBoxAssignmentService.streamAllInactive(FieldSelection.of(fields));
     }
 
     @GetMapping("/water-box-assignments/{id}")
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Mono<WaterBoxAssignmentResponse> getAssignmentById(@PathVariable Long id) {
-        return waterBoxAssignmentService.getById(id);
+    public Mono<WaterBoxAssignmentResponse> getAssignmentById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditionalGet.global(exchange, ChangeEntity.ASSIGNMENTS, () -> waterBoxAssignmentService.getById(id));
     }
 
     // ===============================
     // GESTIÓN DE WATER BOX TRANSFERS
     // ===============================
 
-    @GetMapping("/water-box-transfers")
+    @GetMapping(value = "/water-box-transfers", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
+    public Mono<PageResponse<WaterBoxTransferResponse>> getAllTransfers(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, @RequestParam(required = false) String fields, ServerWebExchange exchange) {
+        return conditionalGet.forOrganization(exchange, ChangeEntity.TRANSFERS, () -> waterBoxTransferService.getAll(PageQuery.of(cursor, size), FieldSelection.of(fields)));
+    }
+
+    @GetMapping(value = "/water-box-transfers", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Flux<WaterBoxTransferResponse> getAllTransfers() {
-        return waterBoxTransferService.getAll();
+    public Flux<WaterBoxTransferResponse> streamAllTransfers(@RequestParam(required = false) String fields) {
+        return waterBoxTransferService.streamAll(FieldSelection.of(fields));
     }
 
     @GetMapping("/water-box-transfers/{id}")
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public Mono<WaterBoxTransferResponse> getTransferById(@PathVariable Long id) {
-        return waterBoxTransferService.getById(id);
+    public Mono<WaterBoxTransferResponse> getTransferById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditionalGet.global(exchange, ChangeEntity.TRANSFERS, () -> waterBoxTransferService.getById(id));
     }
 }
\ No newline at end of file
@@ -11,11 +11,19 @@ import pe.edu.vallegrande.ms_infraestructura.application.services.IWaterBoxTrans
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxRequest;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxAssignmentRequest;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.WaterBoxTransferRequest;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.BulkCreateResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.CacheStatsResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
 import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.EntityCache;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.IdempotencyService;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/management")
 @RequiredArgsConstructor
@@ -24,6 +32,11 @@ public class SuperAdminRest {
     private final IWaterBoxService waterBoxService;
     private final IWaterBoxAssignmentService waterBoxAssignmentService;
     private final IWaterBoxTransferService waterBoxTransferService;
+    private final IdempotencyService idempotencyService;
+    private final EntityCache<WaterBoxResponse> waterBoxCache;
+    private final EntityCache<WaterBoxAssignmentResponse> waterBoxAssignmentCache;
+    private final EntityCache<WaterBoxTransferResponse> waterBoxTransferCache;
+    private final EntityCache<WaterBoxHistoryResponse> waterBoxHistoryCache;
 
     // ===============================
     // GESTIÓN DE WATER BOXES
@@ -32,8 +45,18 @@ public class SuperAdminRest {
     @PostMapping("/water-boxes")
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('SUPER_ADMIN')")
-    public Mono<WaterBoxResponse> createWaterBox(@Valid @RequestBody WaterBoxRequest request) {
-        return waterBoxService.save(request);
+    public Mono<WaterBoxResponse> createWaterBox(@Valid @RequestBody WaterBoxRequest request,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/management/water-boxes", request, WaterBoxResponse.class,
+                waterBoxService.save(request));
+    }
+
+    @PostMapping("/water-boxes/bulk")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public Mono<BulkCreateResponse> createWaterBoxes(@RequestBody List<WaterBoxRequest> requests,
+                                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/management/water-boxes/bulk", requests, BulkCreateResponse.class,
+                waterBoxService.saveAll(requests));
     }
 
     @PutMapping("/water-boxes/{id}")
@@ -56,8 +79,10 @@ public class SuperAdminRest {
     @PostMapping("/water-box-assignments")
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('SUPER_ADMIN')")
-    public Mono<WaterBoxAssignmentResponse> createAssignment(@Valid @RequestBody WaterBoxAssignmentRequest request) {
-        return waterBoxAssignmentService.save(request);
+    public Mono<WaterBoxAssignmentResponse> createAssignment(@Valid @RequestBody WaterBoxAssignmentRequest request,
+                                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/management/water-box-assignments", request, WaterBoxAssignmentResponse.class,
+                waterBoxAssignmentService.save(request));
     }
 
     @PutMapping("/water-box-assignments/{id}")
@@ -80,7 +105,20 @@ public class SuperAdminRest {
     @PostMapping("/water-box-transfers")
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('SUPER_ADMIN')")
-    public Mono<WaterBoxTransferResponse> createTransfer(@Valid @RequestBody WaterBoxTransferRequest request) {
-        return waterBoxTransferService.save(request);
+    public Mono<WaterBoxTransferResponse> createTransfer(@Valid @RequestBody WaterBoxTransferRequest request,
+                                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/management/water-box-transfers", request, WaterBoxTransferResponse.class,
+                waterBoxTransferService.save(request));
+    }
+
+    // ===============================
+    // CACHÉ DE LECTURA POR ID
+    // ===============================
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public Flux<CacheStatsResponse> getCacheStats() {
+        return Flux.just(waterBoxCache, waterBoxAssignmentCache, waterBoxTransferCache, waterBoxHistoryCache)
+                .map(CacheStatsResponse::of);
     }
 }
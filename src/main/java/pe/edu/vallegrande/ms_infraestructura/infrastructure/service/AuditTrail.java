@@ -0,0 +1,189 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.AuditAction;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.AuditEventRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.AuditEventRepository.AuditEvent;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Auditoría de las escrituras (quién, qué acción, sobre qué entidad, antes y después).
+ * record() solo encola el evento cuando la transacción hace commit: no agrega consultas
+ * a la petición ni mantiene abierta su transacción. Los eventos se guardan en segundo
+ * plano en INSERT multi-fila al juntar app.audit.batch-size o cada
+ * app.audit.flush-interval-ms, lo que ocurra primero.
+ * La cola es acotada (app.audit.buffer-size); al llenarse se descarta el evento nuevo
+ * (DROP_NEWEST) o el más antiguo (DROP_OLDEST) según app.audit.overflow-policy, y el
+ * descarte se cuenta en app.audit.dropped. Un lote que no se pudo insertar se
+ * registra en el log y se cuenta en app.audit.failed; no se reintenta.
+ */
+@Service
+@Slf4j
+public class AuditTrail implements MeterBinder {
+
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    private static final int OVERFLOW_LOG_EVERY = 1000;
+
+    private final AuditEventRepository auditEventRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<Pending> queue;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public AuditTrail(AuditEventRepository auditEventRepository,
+                      ObjectMapper objectMapper,
+                      @Value("${app.audit.enabled:true}") boolean enabled,
+                      @Value("${app.audit.buffer-size:10000}") int bufferSize,
+                      @Value("${app.audit.batch-size:200}") int batchSize,
+                      @Value("${app.audit.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy) {
+        this.auditEventRepository = auditEventRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    /**
+     * Encola el evento al hacer commit la transacción en curso (o al momento si no hay).
+     * before y after son las respuestas de la entidad; se serializan al guardar el lote.
+     */
+    public Mono<Void> record(AuditAction action, String entityType, Long entityId, Object before, Object after) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        LocalDateTime createdAt = LocalDateTime.now();
+        return CurrentUser.current()
+                .map(user -> new Pending(user.getUserId(), user.getUsername(), action, entityType, entityId, before, after, createdAt))
+                .switchIfEmpty(Mono.fromCallable(() -> new Pending(null, null, action, entityType, entityId, before, after, createdAt)))
+                .flatMap(event -> TransactionHooks.afterCommit(() -> enqueue(event)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.flush-interval-ms:1000}")
+    public void flush() {
+        if (queue.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        List<Pending> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        insert(batch)
+                .doFinally(signal -> {
+                    flushing.set(false);
+                    if (queue.size() >= batchSize) {
+                        flush();
+                    }
+                })
+                .subscribe();
+    }
+
+    /**
+     * Guarda lo pendiente antes de cerrar el pool de conexiones
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        try {
+            for (int from = 0; from < remaining.size(); from += batchSize) {
+                insert(remaining.subList(from, Math.min(from + batchSize, remaining.size()))).block(Duration.ofSeconds(10));
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron guardar {} eventos de auditoría al cerrar: {}", remaining.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.audit.queue", queue, BlockingQueue::size)
+                .description("Eventos de auditoría pendientes de guardar")
+                .register(registry);
+        FunctionCounter.builder("app.audit.dropped", dropped, AtomicLong::get)
+                .description("Eventos de auditoría descartados por cola llena")
+                .register(registry);
+        FunctionCounter.builder("app.audit.failed", failed, AtomicLong::get)
+                .description("Eventos de auditoría que no se pudieron insertar")
+                .register(registry);
+    }
+
+    private void enqueue(Pending event) {
+        if (!queue.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                queue.poll();
+                queue.offer(event);
+            }
+            countDropped();
+        }
+        if (queue.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void countDropped() {
+        long total = dropped.incrementAndGet();
+        if (total == 1 || total % OVERFLOW_LOG_EVERY == 0) {
+            log.warn("Cola de auditoría llena ({}): {} eventos descartados en total", overflowPolicy, total);
+        }
+    }
+
+    private Mono<Void> insert(List<Pending> batch) {
+        return Mono.fromCallable(() -> batch.stream().map(this::toEvent).toList())
+                .flatMap(auditEventRepository::insertAll)
+                .doOnNext(inserted -> log.debug("Eventos de auditoría guardados: {}", inserted))
+                .onErrorResume(error -> {
+                    failed.addAndGet(batch.size());
+                    log.warn("No se pudo guardar un lote de {} eventos de auditoría: {}", batch.size(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private AuditEvent toEvent(Pending event) {
+        return new AuditEvent(event.userId(), event.username(), event.action().name(), event.entityType(),
+                event.entityId(), toJson(event.before()), toJson(event.after()), event.createdAt());
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(value);
+        }
+    }
+
+    private record Pending(String userId, String username, AuditAction action, String entityType, Long entityId,
+                           Object before, Object after, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,201 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.ChangeEvent;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Avisos de cambios en vivo a partir de LISTEN/NOTIFY de Postgres.
+ * Un solo listener por nodo, en una conexión propia fuera del pool (LISTEN no funciona
+ * a través de un pooler en modo transacción), reparte cada aviso a todos los
+ * suscriptores. Cada suscriptor tiene un buffer acotado: si no consume a tiempo
+ * se le cierra el stream (el EventSource del navegador reconecta solo) y los demás
+ * no se ven afectados. Si la conexión del listener se cae se reintenta con backoff
+ * y, al volver, se envía un evento "resync" porque pudieron perderse avisos.
+ * Los avisos también suben las versiones de ChangeVersionRegistry, así los ETag
+ * reflejan al momento las escrituras hechas por otros nodos. Postgres agrupa las
+ * filas de una sentencia en un aviso por organización, de modo que una carga masiva
+ * no llena los buffers de los suscriptores ni sube las versiones fila por fila.
+ */
+@Component
+@Slf4j
+public class ChangeFeed implements MeterBinder {
+
+    private static final String CHANNEL = "infra_changes";
+
+    private final ObjectMapper objectMapper;
+    private final ChangeVersionRegistry changeVersionRegistry;
+    private final ConnectionFactory listenerConnectionFactory;
+    private final boolean enabled;
+    private final int subscriberBuffer;
+    private final Duration heartbeat;
+
+    private final Sinks.Many<ChangeEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private Counter droppedSubscribers;
+    private volatile Disposable listener;
+
+    public ChangeFeed(ObjectMapper objectMapper,
+                      ChangeVersionRegistry changeVersionRegistry,
+                      @Value("${app.changes.listener-url:${spring.r2dbc.url}}") String listenerUrl,
+                      @Value("${spring.r2dbc.username:}") String username,
+                      @Value("${spring.r2dbc.password:}") String password,
+                      @Value("${app.changes.enabled:true}") boolean enabled,
+                      @Value("${app.changes.subscriber-buffer:256}") int subscriberBuffer,
+                      @Value("${app.changes.heartbeat:PT15S}") Duration heartbeat) {
+        this.objectMapper = objectMapper;
+        this.changeVersionRegistry = changeVersionRegistry;
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(listenerUrl).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.listenerConnectionFactory = ConnectionFactories.get(options.build());
+        this.enabled = enabled;
+        this.subscriberBuffer = subscriberBuffer;
+        this.heartbeat = heartbeat;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        listener = Flux.usingWhen(listenerConnectionFactory.create(), this::listen, Connection::close)
+                // Que la conexión termine también es una caída: se vuelve a escuchar
+                .concatWith(Mono.error(new IllegalStateException("La conexión LISTEN se cerró")))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Listener de cambios caído, reintento {}: {}",
+                                signal.totalRetries() + 1, signal.failure().getMessage())))
+                .subscribe(this::publish, error -> log.error("Listener de cambios detenido: {}", error.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (listener != null) {
+            listener.dispose();
+        }
+        sink.tryEmitComplete();
+    }
+
+    /**
+     * Stream SSE de un suscriptor; sin organización recibe los cambios de todas
+     */
+    public Flux<ServerSentEvent<ChangeEvent>> stream(String organizationId) {
+        Flux<ServerSentEvent<ChangeEvent>> events = sink.asFlux()
+                .filter(event -> organizationId == null
+                        || ChangeEvent.RESYNC.equals(event.getEntity())
+                        || organizationId.equals(event.getOrganizationId())
+                        || organizationId.equals(event.getPreviousOrganizationId()))
+                .onBackpressureBuffer(subscriberBuffer, dropped -> { }, BufferOverflowStrategy.ERROR)
+                .onErrorResume(Exceptions::isOverflow, error -> {
+                    droppedSubscribers.increment();
+                    log.warn("Suscriptor de cambios desconectado: superó {} eventos pendientes", subscriberBuffer);
+                    return Flux.empty();
+                })
+                .map(event -> ServerSentEvent.builder(event).event(event.getEntity()).build());
+        // El keep-alive mantiene viva la conexión entre eventos y se detiene junto con ellos
+        return events.publish(shared -> Flux.merge(shared, Flux.interval(heartbeat)
+                        .map(tick -> ServerSentEvent.<ChangeEvent>builder().comment("keep-alive").build())
+                        .takeUntilOther(shared.then())))
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.changes.subscribers", subscribers, AtomicInteger::get)
+                .description("Suscriptores conectados al stream de cambios")
+                .register(registry);
+        droppedSubscribers = Counter.builder("app.changes.dropped")
+                .description("Suscriptores desconectados por no consumir a tiempo")
+                .register(registry);
+    }
+
+    private Flux<ChangeEvent> listen(Connection connection) {
+        PostgresqlConnection postgres = (PostgresqlConnection) connection;
+        return postgres.createStatement("LISTEN " + CHANNEL)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then(Mono.fromRunnable(() -> {
+                    log.info("Escuchando cambios en el canal {}", CHANNEL);
+                    // Mientras no se escuchaba pudieron perderse avisos
+                    changeVersionRegistry.reconcile();
+                }))
+                .thenMany(Flux.concat(
+                        Mono.just(ChangeEvent.builder().entity(ChangeEvent.RESYNC).build()),
+                        postgres.getNotifications()
+                                .mapNotNull(notification -> parse(notification.getParameter()))));
+    }
+
+    private void publish(ChangeEvent event) {
+        bumpVersions(event);
+        sink.tryEmitNext(event);
+    }
+
+    private void bumpVersions(ChangeEvent event) {
+        ChangeEntity entity = toChangeEntity(event.getEntity());
+        if (entity == null) {
+            return;
+        }
+        if (event.getPreviousOrganizationId() != null) {
+            changeVersionRegistry.bump(event.getPreviousOrganizationId(), ChangeEntity.values());
+            changeVersionRegistry.bump(event.getOrganizationId(), ChangeEntity.values());
+            return;
+        }
+        changeVersionRegistry.bump(event.getOrganizationId(), entity);
+    }
+
+    private ChangeEvent parse(String payload) {
+        try {
+            return objectMapper.readValue(Objects.requireNonNullElse(payload, "{}"), ChangeEvent.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Aviso de cambio ilegible: {}", payload);
+            return null;
+        }
+    }
+
+    private static ChangeEntity toChangeEntity(String table) {
+        if (table == null) {
+            return null;
+        }
+        return switch (table) {
+            case "water_boxes" -> ChangeEntity.WATER_BOXES;
+            case "water_box_assignments" -> ChangeEntity.ASSIGNMENTS;
+            case "water_box_transfers" -> ChangeEntity.TRANSFERS;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.ChangeVersionQueryRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de cambios por organización y tipo de entidad, base de los ETag.
+ * Es una marca de tiempo en microsegundos que solo crece: se siembra con el
+ * MAX(updated_at) de cada tabla y los servicios de escritura la incrementan después
+ * del commit. Como parte de la última modificación en la base, un reinicio no repite
+ * versiones ya entregadas. Una reconciliación periódica adopta cambios hechos por
+ * otros nodos (sin retroceder nunca una versión).
+ * Además hay una versión global por tipo, que sube con cualquier organización
+ * (getById y tokens sin organización).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeVersionRegistry {
+
+    public enum ChangeEntity {
+        WATER_BOXES, ASSIGNMENTS, TRANSFERS
+    }
+
+    private final ChangeVersionQueryRepository changeVersionQueryRepository;
+
+    private final Map<Key, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<ChangeEntity, AtomicLong> globalVersions = globalVersions();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${app.etag.reconcile-interval-ms:60000}",
+            fixedDelayString = "${app.etag.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        changeVersionQueryRepository.lastChanges()
+                .filter(change -> change.changedAt() != null)
+                .doOnNext(change -> advance(change.organizationId(), ChangeEntity.valueOf(change.entity()), toMicros(change.changedAt())))
+                .count()
+                .doFinally(signal -> reconciling.set(false))
+                .subscribe(count -> log.debug("Versiones de cambio reconciliadas ({} filas)", count),
+                        error -> log.warn("No se pudieron reconciliar las versiones de cambio: {}", error.getMessage()));
+    }
+
+    /**
+     * Versión actual; sin organización, la global del tipo
+     */
+    public long version(String organizationId, ChangeEntity entity) {
+        if (organizationId == null) {
+            return globalVersions.get(entity).get();
+        }
+        AtomicLong version = versions.get(new Key(organizationId, entity));
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Incrementa las versiones cuando la transacción en curso hace commit.
+     * Sin organización (no se conoce a cuál afectó el cambio) sube las de todas.
+     */
+    public Mono<Void> bumpAfterCommit(String organizationId, ChangeEntity... entities) {
+        return TransactionHooks.afterCommit(() -> bump(organizationId, entities));
+    }
+
+    public void bump(String organizationId, ChangeEntity... entities) {
+        long now = toMicros(LocalDateTime.now());
+        for (ChangeEntity entity : entities) {
+            if (organizationId == null) {
+                versions.forEach((key, version) -> {
+                    if (key.entity() == entity) {
+                        version.updateAndGet(current -> Math.max(current + 1, now));
+                    }
+                });
+            } else {
+                versions.computeIfAbsent(new Key(organizationId, entity), key -> new AtomicLong())
+                        .updateAndGet(current -> Math.max(current + 1, now));
+            }
+            globalVersions.get(entity).updateAndGet(current -> Math.max(current + 1, now));
+        }
+    }
+
+    private void advance(String organizationId, ChangeEntity entity, long version) {
+        versions.computeIfAbsent(new Key(organizationId, entity), key -> new AtomicLong())
+                .accumulateAndGet(version, Math::max);
+        globalVersions.get(entity).accumulateAndGet(version, Math::max);
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static Map<ChangeEntity, AtomicLong> globalVersions() {
+        Map<ChangeEntity, AtomicLong> global = new EnumMap<>(ChangeEntity.class);
+        for (ChangeEntity entity : ChangeEntity.values()) {
+            global.put(entity, new AtomicLong());
+        }
+        return global;
+    }
+
+    private record Key(String organizationId, ChangeEntity entity) {
+    }
+}
@@ -0,0 +1,83 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * GET condicionales con ETag fuerte derivado de ChangeVersionRegistry.
+ * El ETag combina la versión de cambios con la ruta, la query y la organización del
+ * token, y se calcula antes de consultar: si coincide con If-None-Match se responde
+ * 304 sin ejecutar el servicio. Si hay una escritura mientras se consulta, la respuesta
+ * sale con el ETag anterior y la siguiente petición vuelve a descargar (nunca al revés).
+ * El ETag y Cache-Control sólo acompañan a un cuerpo resuelto: un 404 o 403 sale sin ellos.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGet {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final ChangeVersionRegistry changeVersionRegistry;
+
+    /**
+     * Listados limitados a la organización del token. El alcance se resuelve igual que en
+     * la consulta (CurrentUser.organizationScope): un token sin organización que no es
+     * SUPER_ADMIN recibe 403 antes de comparar ETag, nunca un 304 con la versión global
+     */
+    public <T> Mono<T> forOrganization(ServerWebExchange exchange, ChangeEntity entity, Supplier<Mono<T>> body) {
+        return CurrentUser.current()
+                .map(user -> Objects.toString(user.organizationScope(), ""))
+                .defaultIfEmpty("")
+                .flatMap(organizationId -> respond(exchange, entity, organizationId.isEmpty() ? null : organizationId, body));
+    }
+
+    /**
+     * Consultas por ID: la entidad puede ser de cualquier organización, se usa la versión global
+     */
+    public <T> Mono<T> global(ServerWebExchange exchange, ChangeEntity entity, Supplier<Mono<T>> body) {
+        return Mono.defer(() -> respond(exchange, entity, null, body));
+    }
+
+    private <T> Mono<T> respond(ServerWebExchange exchange, ChangeEntity entity, String organizationId, Supplier<Mono<T>> body) {
+        long version = changeVersionRegistry.version(organizationId, entity);
+        String etag = etag(exchange, entity, organizationId, version);
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        if (exchange.checkNotModified(etag)) {
+            headers.setCacheControl(CACHE_CONTROL);
+            return Mono.empty();
+        }
+        // checkNotModified deja el ETag en la respuesta aunque no coincida
+        headers.remove(HttpHeaders.ETAG);
+        return body.get().doOnNext(value -> {
+            headers.setETag(etag);
+            headers.setCacheControl(CACHE_CONTROL);
+        });
+    }
+
+    private static String etag(ServerWebExchange exchange, ChangeEntity entity, String organizationId, long version) {
+        String uri = exchange.getRequest().getURI().getRawPath() + "?" + exchange.getRequest().getURI().getRawQuery();
+        return "\"" + entity.name().toLowerCase() + "-" + Long.toString(version, 36) + "-"
+                + sha256(uri + "|" + organizationId).substring(0, 16) + "\"";
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escribe filas como CSV (RFC 4180, UTF-8) directamente en DataBuffers del factory
+ * de la respuesta (con Netty, buffers del pool). Cada bloque de filas se convierte en
+ * un solo buffer que se entrega a la red antes de pedir el siguiente bloque, así que
+ * en memoria solo hay unos pocos bloques a la vez.
+ * Con gzip las filas pasan por un GZIPOutputStream con sync flush cuyo destino se
+ * cambia al buffer de cada bloque: la concatenación de los buffers entregados es gzip
+ * válido hasta ese punto. La cabecera gzip, que se escribe al crear el stream, viaja
+ * en el primer buffer y el trailer en el último.
+ * No es thread-safe; se crea uno por exportación.
+ */
+public final class CsvDataBufferEncoder implements AutoCloseable {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final DataBufferFactory bufferFactory;
+    private final StringBuilder text = new StringBuilder(GZIP_BUFFER_SIZE);
+    private final BufferOutputStream sink = new BufferOutputStream();
+    private final Writer gzipWriter;
+
+    private CsvDataBufferEncoder(DataBufferFactory bufferFactory, boolean gzip) {
+        this.bufferFactory = bufferFactory;
+        try {
+            this.gzipWriter = gzip
+                    ? new OutputStreamWriter(new GZIPOutputStream(sink, GZIP_BUFFER_SIZE, true), StandardCharsets.UTF_8)
+                    : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Cabecera y filas como CSV; los buffers que no llegan a escribirse se liberan
+     */
+    public static Flux<DataBuffer> encode(DataBufferFactory bufferFactory, String[] header, Flux<Object[]> rows,
+                                          int rowsPerBuffer, boolean gzip) {
+        return Flux.using(() -> new CsvDataBufferEncoder(bufferFactory, gzip),
+                        encoder -> Flux.concat(
+                                Mono.fromCallable(() -> encoder.chunk(List.<Object[]>of(header))),
+                                rows.buffer(rowsPerBuffer).map(encoder::chunk),
+                                Mono.fromCallable(encoder::finish)),
+                        CsvDataBufferEncoder::close)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private DataBuffer chunk(List<Object[]> rows) {
+        text.setLength(0);
+        for (Object[] row : rows) {
+            appendRow(row);
+        }
+        if (gzipWriter == null) {
+            DataBuffer buffer = bufferFactory.allocateBuffer(text.length() + 16);
+            return buffer.write(text, StandardCharsets.UTF_8);
+        }
+        return compress(writer -> {
+            writer.append(text);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Trailer de gzip (close ya vacía el Deflater); sin gzip no hay nada más que escribir
+     */
+    private DataBuffer finish() {
+        if (gzipWriter == null) {
+            return null;
+        }
+        return compress(Writer::close);
+    }
+
+    private DataBuffer compress(GzipStep step) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(text.length() / 4 + 64);
+        try {
+            sink.attach(buffer.asOutputStream());
+            step.apply(gzipWriter);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+        } finally {
+            sink.detach();
+        }
+    }
+
+    private void appendRow(Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            appendValue(row[i]);
+        }
+        text.append("\r\n");
+    }
+
+    private void appendValue(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number || value instanceof TemporalAccessor) {
+            text.append(value);
+            return;
+        }
+        String string = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < string.length() && !quote; i++) {
+            char c = string.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            text.append(string);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"') {
+                text.append('"');
+            }
+            text.append(c);
+        }
+        text.append('"');
+    }
+
+    @Override
+    public void close() {
+        if (gzipWriter == null) {
+            return;
+        }
+        // Si la exportación se cortó antes del trailer, libera el Deflater; lo que escriba queda en "pending".
+        // Tras finish() el writer ya está cerrado y esto no hace nada
+        try {
+            gzipWriter.close();
+        } catch (IOException | RuntimeException ignored) {
+            // Sin destino no hay nada que perder
+        }
+    }
+
+    @FunctionalInterface
+    private interface GzipStep {
+        void apply(Writer writer) throws IOException;
+    }
+
+    /**
+     * Destino de GZIPOutputStream; apunta al buffer del bloque en curso.
+     * Lo escrito sin bloque en curso (la cabecera que escribe el constructor de
+     * GZIPOutputStream) se guarda y pasa al inicio del siguiente buffer.
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream(16);
+        private OutputStream target;
+
+        void attach(OutputStream target) throws IOException {
+            if (pending.size() > 0) {
+                pending.writeTo(target);
+                pending.reset();
+            }
+            this.target = target;
+        }
+
+        void detach() {
+            target = null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            (target != null ? target : pending).write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            (target != null ? target : pending).write(bytes, offset, length);
+        }
+    }
+}
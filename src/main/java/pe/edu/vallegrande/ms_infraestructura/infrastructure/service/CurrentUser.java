@@ -0,0 +1,86 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import lombok.Getter;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Usuario autenticado de la petición.
+ * Se construye una sola vez por token en CurrentUserWebFilter y viaja en el
+ * contexto de Reactor, por lo que los servicios lo leen sin volver a recorrer
+ * los claims del JWT.
+ */
+@Getter
+public final class CurrentUser {
+
+    private static final String SUPER_ADMIN = "SUPER_ADMIN";
+
+    private final String userId;
+    private final String username;
+    private final String email;
+    private final String fullName;
+    private final String givenName;
+    private final String familyName;
+    private final String organizationId;
+    private final List<String> roles;
+    private final Set<String> roleSet;
+
+    private CurrentUser(Jwt jwt, String organizationClaim) {
+        this.userId = jwt.getSubject();
+        this.username = jwt.getClaimAsString("preferred_username");
+        this.email = jwt.getClaimAsString("email");
+        this.fullName = jwt.getClaimAsString("name");
+        this.givenName = jwt.getClaimAsString("given_name");
+        this.familyName = jwt.getClaimAsString("family_name");
+        this.organizationId = jwt.getClaimAsString(organizationClaim);
+        this.roles = extractRealmRoles(jwt);
+        this.roleSet = Set.copyOf(roles);
+    }
+
+    public static CurrentUser from(Jwt jwt, String organizationClaim) {
+        return new CurrentUser(jwt, organizationClaim);
+    }
+
+    /**
+     * Usuario de la petición en curso; vacío si la petición no está autenticada
+     */
+    public static Mono<CurrentUser> current() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(CurrentUser.class)));
+    }
+
+    public boolean hasRole(String role) {
+        return roleSet.contains(role);
+    }
+
+    /**
+     * Organización a la que se limitan las consultas; null solo para un SUPER_ADMIN
+     * sin organización, que ve todas. Cualquier otro token sin organización se
+     * rechaza con 403 en lugar de ver los datos de todas las organizaciones.
+     */
+    public String organizationScope() {
+        if (organizationId != null) {
+            return organizationId;
+        }
+        if (hasRole(SUPER_ADMIN)) {
+            return null;
+        }
+        throw new AccessDeniedException("El token del usuario " + username + " no indica su organización");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> extractRealmRoles(Jwt jwt) {
+        Object realmAccess = jwt.getClaim("realm_access");
+        if (realmAccess instanceof Map) {
+            Object roles = ((Map<String, Object>) realmAccess).get("roles");
+            if (roles instanceof List) {
+                return List.copyOf((List<String>) roles);
+            }
+        }
+        return List.of();
+    }
+}
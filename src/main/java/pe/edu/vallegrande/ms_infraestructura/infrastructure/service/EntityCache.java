@@ -0,0 +1,88 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria (por nodo) de respuestas por ID, con límite de tamaño y TTL.
+ * Las lecturas concurrentes de un mismo ID comparten una sola consulta a Postgres;
+ * los IDs inexistentes no se guardan.
+ * Las escrituras invalidan las entradas que tocan al momento y otra vez al terminar
+ * la transacción, para que una lectura concurrente no deje en caché el valor anterior.
+ * Sus estadísticas se publican en Micrometer como cache.* con el tag cache=name.
+ */
+public class EntityCache<V> implements MeterBinder {
+
+    private final String name;
+    private final AsyncCache<Long, V> cache;
+
+    public EntityCache(String name, long maxSize, Duration ttl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Mono<V> get(Long id, Function<Long, Mono<V>> loader) {
+        // suppressCancel: la consulta es compartida, un cliente que se desconecta no la cancela para los demás
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture()), true);
+    }
+
+    /**
+     * Invalida los IDs indicados; si hay una transacción en curso, vuelve a invalidarlos
+     * cuando esta termina (commit o rollback)
+     */
+    public Mono<Void> evict(Long... ids) {
+        Long[] keys = Arrays.stream(ids).filter(Objects::nonNull).toArray(Long[]::new);
+        if (keys.length == 0) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> invalidate(keys))
+                .then(TransactionSynchronizationManager.forCurrentTransaction())
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCompletion(int status) {
+                        return Mono.fromRunnable(() -> invalidate(keys));
+                    }
+                }))
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .then();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private void invalidate(Long[] keys) {
+        cache.synchronous().invalidateAll(Arrays.asList(keys));
+    }
+}
@@ -0,0 +1,162 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.exceptions.BadRequestException;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.IdempotencyKeyRepository;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Soporte de la cabecera Idempotency-Key en los POST de creación.
+ * La llave se limita al usuario y a la ruta. La primera petición ejecuta el servicio
+ * y las repetidas (incluso las que llegan mientras la primera sigue en curso)
+ * reciben la misma respuesta sin volver a ejecutarlo.
+ * Si la operación falla la llave se libera para que el cliente pueda reintentar.
+ * Reutilizar una llave con otro cuerpo se rechaza con 400.
+ * Con app.idempotency.persistent las respuestas también se guardan en Postgres,
+ * de modo que sobreviven a un reinicio y se comparten entre nodos.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> cache;
+    private final Duration ttl;
+    private final boolean persistent;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.max-size:10000}") long maxSize,
+                              @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${app.idempotency.persistent:false}") boolean persistent) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.persistent = persistent;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Ejecuta action una sola vez por llave; sin cabecera se ejecuta siempre
+     */
+    public <T> Mono<T> execute(String idempotencyKey, String route, Object request,
+                               Class<T> responseType, Mono<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action;
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new BadRequestException("La cabecera " + HEADER + " no puede exceder los " + MAX_KEY_LENGTH + " caracteres."));
+        }
+        return CurrentUser.current()
+                .map(CurrentUser::getUserId)
+                .defaultIfEmpty("anonymous")
+                .flatMap(userId -> {
+                    String keyHash = sha256(userId + "|" + route + "|" + idempotencyKey);
+                    String fingerprint = sha256(toJson(request));
+                    Entry entry = cache.get(keyHash, key -> newEntry(key, fingerprint, responseType, action));
+                    if (!entry.fingerprint().equals(fingerprint)) {
+                        return Mono.error(reusedKey());
+                    }
+                    return entry.response().map(responseType::cast);
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        if (!persistent) {
+            return;
+        }
+        idempotencyKeyRepository.deleteExpired(LocalDateTime.now())
+                .subscribe(deleted -> log.debug("Llaves de idempotencia vencidas eliminadas: {}", deleted),
+                        error -> log.warn("No se pudieron eliminar las llaves de idempotencia vencidas: {}", error.getMessage()));
+    }
+
+    private <T> Entry newEntry(String keyHash, String fingerprint, Class<T> responseType, Mono<T> action) {
+        AtomicReference<Entry> self = new AtomicReference<>();
+        Mono<Object> response = findStored(keyHash, fingerprint, responseType)
+                .switchIfEmpty(Mono.defer(() -> action.flatMap(result -> store(keyHash, fingerprint, result))))
+                // Un error no se recuerda: se libera la llave para que el reintento vuelva a ejecutar
+                .doOnError(error -> cache.asMap().remove(keyHash, self.get()))
+                .cache();
+        Entry entry = new Entry(fingerprint, response);
+        self.set(entry);
+        return entry;
+    }
+
+    private <T> Mono<Object> findStored(String keyHash, String fingerprint, Class<T> responseType) {
+        if (!persistent) {
+            return Mono.empty();
+        }
+        return idempotencyKeyRepository.find(keyHash, LocalDateTime.now())
+                .flatMap(stored -> {
+                    if (!stored.fingerprint().equals(fingerprint)) {
+                        return Mono.error(reusedKey());
+                    }
+                    try {
+                        return Mono.just(objectMapper.readValue(stored.responseBody(), responseType));
+                    } catch (JsonProcessingException e) {
+                        return Mono.error(new IllegalStateException("Respuesta idempotente ilegible", e));
+                    }
+                });
+    }
+
+    private <T> Mono<Object> store(String keyHash, String fingerprint, T result) {
+        if (!persistent) {
+            return Mono.just(result);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return idempotencyKeyRepository.save(keyHash, fingerprint, toJson(result), now, now.plus(ttl))
+                .onErrorResume(error -> {
+                    // La operación ya se ejecutó: si no se puede guardar, igual se responde
+                    log.warn("No se pudo guardar la respuesta idempotente: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(result);
+    }
+
+    private BadRequestException reusedKey() {
+        return new BadRequestException("La cabecera " + HEADER + " ya se usó con una solicitud diferente.");
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el contenido para la llave de idempotencia", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record Entry(String fingerprint, Mono<Object> response) {
+    }
+}
@@ -0,0 +1,157 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache en memoria del JWK Set de Keycloak.
+ * - Las llaves se descargan una sola vez y se refrescan en segundo plano.
+ * - Si llega un token con un "kid" desconocido (rotación de llaves) se fuerza un
+ *   refresco, agrupando las peticiones concurrentes y con un intervalo mínimo
+ *   para que tokens inválidos no puedan saturar a Keycloak.
+ * - Con app.security.jwt.jwks-file las llaves se cargan desde un archivo local y
+ *   la validación no depende de la red.
+ */
+@Component
+@Slf4j
+public class JwkSetCache {
+
+    private final ResourceLoader resourceLoader;
+    private final WebClient webClient = WebClient.create();
+
+    private final AtomicReference<JWKSet> current = new AtomicReference<>(new JWKSet());
+    private final AtomicReference<Mono<JWKSet>> inFlightRefresh = new AtomicReference<>();
+    private volatile boolean refreshed;
+    private volatile long lastRefreshNanos;
+
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+    private String jwkSetUri;
+
+    @Value("${app.security.jwt.jwks-file:}")
+    private String jwksFile;
+
+    @Value("${app.security.jwt.jwks-min-refresh-interval-ms:30000}")
+    private long minRefreshIntervalMs;
+
+    public JwkSetCache(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    void init() {
+        if (isFileMode()) {
+            current.set(loadFromFile());
+            log.info("JWK Set cargado desde archivo local {} ({} llaves)", jwksFile, current.get().getKeys().size());
+        } else {
+            refresh().subscribe(
+                    jwkSet -> log.info("JWK Set inicial descargado ({} llaves)", jwkSet.getKeys().size()),
+                    error -> log.warn("No se pudo descargar el JWK Set inicial: {}", error.getMessage()));
+        }
+    }
+
+    /**
+     * Selecciona las llaves para un token; si no hay coincidencia se intenta
+     * un refresco (posible rotación de llaves en Keycloak).
+     */
+    public Flux<JWK> select(JWKSelector selector) {
+        List<JWK> keys = selector.select(current.get());
+        if (!keys.isEmpty() || isFileMode()) {
+            return Flux.fromIterable(keys);
+        }
+        log.debug("Llave no encontrada en cache, refrescando JWK Set");
+        return refresh()
+                .flatMapMany(jwkSet -> Flux.fromIterable(selector.select(jwkSet)));
+    }
+
+    /**
+     * Selección sin esperar a la red (usada por el decoder bloqueante).
+     * Si no hay coincidencia se dispara un refresco en segundo plano.
+     */
+    public List<JWK> selectCached(JWKSelector selector) {
+        List<JWK> keys = selector.select(current.get());
+        if (keys.isEmpty() && !isFileMode()) {
+            refresh().subscribe(jwkSet -> { }, error -> log.warn("Error refrescando JWK Set: {}", error.getMessage()));
+        }
+        return keys;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.jwt.jwks-refresh-interval-ms:300000}",
+            initialDelayString = "${app.security.jwt.jwks-refresh-interval-ms:300000}")
+    void refreshInBackground() {
+        if (isFileMode()) {
+            return;
+        }
+        refresh().subscribe(
+                jwkSet -> log.debug("JWK Set refrescado en segundo plano ({} llaves)", jwkSet.getKeys().size()),
+                error -> log.warn("Error refrescando JWK Set en segundo plano: {}", error.getMessage()));
+    }
+
+    /**
+     * Descarga el JWK Set. Las llamadas concurrentes comparten la misma petición y
+     * dentro del intervalo mínimo se devuelve el set vigente.
+     */
+    public Mono<JWKSet> refresh() {
+        if (refreshed && System.nanoTime() - lastRefreshNanos < Duration.ofMillis(minRefreshIntervalMs).toNanos()) {
+            return Mono.just(current.get());
+        }
+        Mono<JWKSet> pending = inFlightRefresh.get();
+        if (pending != null) {
+            return pending;
+        }
+        Mono<JWKSet> download = webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(5))
+                .map(this::parse)
+                .doOnNext(jwkSet -> {
+                    current.set(jwkSet);
+                    lastRefreshNanos = System.nanoTime();
+                    refreshed = true;
+                })
+                .doFinally(signal -> inFlightRefresh.set(null))
+                .cache();
+        if (inFlightRefresh.compareAndSet(null, download)) {
+            return download;
+        }
+        Mono<JWKSet> other = inFlightRefresh.get();
+        return other != null ? other : Mono.just(current.get());
+    }
+
+    private boolean isFileMode() {
+        return jwksFile != null && !jwksFile.isBlank();
+    }
+
+    private JWKSet loadFromFile() {
+        Resource resource = resourceLoader.getResource(jwksFile);
+        try (InputStream inputStream = resource.getInputStream()) {
+            return JWKSet.load(inputStream);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo cargar el JWK Set desde " + jwksFile, e);
+        }
+    }
+
+    private JWKSet parse(String body) {
+        try {
+            return JWKSet.parse(body);
+        } catch (java.text.ParseException e) {
+            throw new IllegalStateException("JWK Set inválido recibido de " + jwkSetUri, e);
+        }
+    }
+}
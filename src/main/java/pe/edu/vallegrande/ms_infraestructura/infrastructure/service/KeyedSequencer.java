@@ -0,0 +1,93 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serializa las operaciones de escritura por llave (ID de la caja de agua).
+ * Cada llave tiene su propia cola: las operaciones de una misma caja se ejecutan
+ * en orden de llegada, una a la vez, y las de cajas distintas corren en paralelo.
+ * Mientras una operación espera su turno no se suscribe, por lo que no abre
+ * transacción ni toma conexión del pool. La cola de una llave se elimina cuando
+ * queda vacía.
+ */
+@Component
+public class KeyedSequencer implements MeterBinder {
+
+    private final ConcurrentHashMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    public <T> Mono<T> submit(Long key, Mono<T> work) {
+        return Mono.defer(() -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            AtomicReference<CompletableFuture<Void>> previous = new AtomicReference<>();
+            lanes.compute(key, (k, lane) -> {
+                Lane current = lane == null ? new Lane() : lane;
+                previous.set(current.tail);
+                current.tail = done;
+                current.depth++;
+                return current;
+            });
+            pending.incrementAndGet();
+            Mono<Void> turn = previous.get() == null ? Mono.empty() : Mono.fromFuture(previous.get(), true);
+            return turn.then(work)
+                    .doFinally(signal -> release(key, previous.get(), done));
+        });
+    }
+
+    /**
+     * Operaciones en cola o en ejecución para la llave
+     */
+    public int depth(Long key) {
+        Lane lane = lanes.get(key);
+        return lane == null ? 0 : lane.depth;
+    }
+
+    /**
+     * Operaciones en cola o en ejecución en total
+     */
+    public long pending() {
+        return pending.get();
+    }
+
+    /**
+     * Llaves con al menos una operación en cola o en ejecución
+     */
+    public int activeKeys() {
+        return lanes.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.sequencer.pending", this, KeyedSequencer::pending)
+                .description("Escrituras en cola o en ejecución")
+                .register(registry);
+        Gauge.builder("app.sequencer.active.keys", this, KeyedSequencer::activeKeys)
+                .description("Cajas de agua con escrituras en cola o en ejecución")
+                .register(registry);
+    }
+
+    private void release(Long key, CompletableFuture<Void> previous, CompletableFuture<Void> done) {
+        pending.decrementAndGet();
+        lanes.computeIfPresent(key, (k, lane) -> --lane.depth == 0 ? null : lane);
+        // Si esta operación se canceló antes de su turno, la siguiente igual espera a la anterior
+        if (previous == null) {
+            done.complete(null);
+        } else {
+            previous.whenComplete((unused, error) -> done.complete(null));
+        }
+    }
+
+    private static final class Lane {
+        private CompletableFuture<Void> tail;
+        private volatile int depth;
+    }
+}
@@ -0,0 +1,55 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Transacciones de escritura sobre entidades con @Version.
+ * Si otra operación modificó la misma fila (OptimisticLockingFailureException),
+ * runWithRetry repite la transacción completa (lectura, validaciones y escritura)
+ * con backoff acotado; al agotar los intentos el error se responde como 409.
+ * El reintento va fuera de la transacción para no reutilizar escrituras parciales.
+ */
+@Component
+@Slf4j
+public class OptimisticTransactions {
+
+    private final TransactionalOperator transactionalOperator;
+    private final Retry retry;
+
+    public OptimisticTransactions(TransactionalOperator transactionalOperator,
+                                  @Value("${app.concurrency.retry.max-attempts:3}") long maxAttempts,
+                                  @Value("${app.concurrency.retry.min-backoff:PT0.02S}") Duration minBackoff,
+                                  @Value("${app.concurrency.retry.max-backoff:PT0.2S}") Duration maxBackoff) {
+        this.transactionalOperator = transactionalOperator;
+        this.retry = Retry.backoff(maxAttempts, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(0.5)
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .doBeforeRetry(signal -> log.warn("Conflicto de versión, reintento {}: {}",
+                        signal.totalRetries() + 1, signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Ejecuta en una transacción; un conflicto de versión se devuelve sin reintentar
+     */
+    public <T> Mono<T> run(Mono<T> work) {
+        return transactionalOperator.transactional(work);
+    }
+
+    /**
+     * Ejecuta en una transacción y la repite completa ante un conflicto de versión.
+     * Solo para flujos que pueden repetirse sin efectos duplicados.
+     */
+    public <T> Mono<T> runWithRetry(Mono<T> work) {
+        return transactionalOperator.transactional(work).retryWhen(retry);
+    }
+}
@@ -0,0 +1,317 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBox;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.OrganizationSummaryResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository.BoxTotals;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository.SummaryRow;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Contadores en memoria (por nodo) del resumen por organización: cajas por estado y
+ * tipo, asignaciones activas, suma de tarifas mensuales y transferencias del mes.
+ * Se siembran con una sola consulta agregada al iniciar y los servicios de escritura
+ * aplican deltas después del commit, por lo que leer el resumen no toca Postgres.
+ * Una reconciliación periódica reemplaza todos los contadores por los de la base
+ * (corrige escrituras de otros nodos o hechas fuera del servicio). Los deltas que
+ * llegan mientras corre la consulta se anotan y se vuelven a aplicar sobre los
+ * contadores nuevos antes del reemplazo, para que no se pierdan hasta la siguiente
+ * reconciliación. La repetición no es exacta: la anotación empieza antes de que
+ * Postgres tome la instantánea de la consulta, y un commit que cae en ese intervalo
+ * (lo que tarda en arrancar la consulta) queda contado dos veces, en la base y en la
+ * anotación. El error se limita a esas escrituras y dura hasta la siguiente
+ * reconciliación; se prefiere a perder los deltas que sí quedan fuera de la consulta.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizationCounters {
+
+    private final SummaryQueryRepository summaryQueryRepository;
+
+    private final AtomicReference<Map<String, Counters>> counters = new AtomicReference<>(new ConcurrentHashMap<>());
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    // Los deltas toman la lectura (concurrentes entre sí); el reemplazo toma la escritura
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private Queue<Consumer<Map<String, Counters>>> pendingDeltas;
+    private volatile LocalDateTime lastReconciledAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${app.summary.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.summary.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        // Desde antes de la consulta: un delta posterior puede no estar en lo que devuelva
+        withWriteLock(() -> pendingDeltas = new ConcurrentLinkedQueue<>());
+        summaryQueryRepository.aggregate(month.atDay(1).atStartOfDay())
+                .collect(ConcurrentHashMap<String, Counters>::new, (fresh, row) -> load(fresh, row, month))
+                .doFinally(signal -> {
+                    withWriteLock(() -> pendingDeltas = null);
+                    reconciling.set(false);
+                })
+                .subscribe(fresh -> {
+                            swap(fresh);
+                            lastReconciledAt = LocalDateTime.now();
+                            log.debug("Contadores del resumen reconciliados para {} organizaciones", fresh.size());
+                        },
+                        error -> log.warn("No se pudieron reconciliar los contadores del resumen: {}", error.getMessage()));
+    }
+
+    /**
+     * Aplica el delta cuando la transacción en curso hace commit; sin transacción, al momento
+     */
+    public Mono<Void> afterCommit(Runnable delta) {
+        return TransactionHooks.afterCommit(delta);
+    }
+
+    public void boxAdded(WaterBox waterBox) {
+        countBox(waterBox.getOrganizationId(), waterBox.getStatus(), waterBox.getBoxType(), 1);
+    }
+
+    public void boxChanged(String oldOrganizationId, Status oldStatus, BoxType oldBoxType, WaterBox waterBox) {
+        countBox(oldOrganizationId, oldStatus, oldBoxType, -1);
+        boxAdded(waterBox);
+    }
+
+    /**
+     * Las asignaciones activas, sus tarifas y las transferencias del mes se cuentan en la
+     * organización de la caja: si la caja cambia de organización, se mueven con ella
+     */
+    public void boxMoved(String oldOrganizationId, String newOrganizationId, BoxTotals totals) {
+        countBoxTotals(oldOrganizationId, totals, -1);
+        countBoxTotals(newOrganizationId, totals, 1);
+    }
+
+    public void assignmentActivated(String organizationId, BigDecimal monthlyFee) {
+        countAssignment(organizationId, monthlyFee, 1);
+    }
+
+    public void assignmentDeactivated(String organizationId, BigDecimal monthlyFee) {
+        countAssignment(organizationId, monthlyFee, -1);
+    }
+
+    /**
+     * Una transferencia inactiva la asignación antigua; la nueva ya estaba activa
+     */
+    public void transferRegistered(String organizationId, BigDecimal oldMonthlyFee) {
+        if (organizationId == null) {
+            return;
+        }
+        apply(map -> of(map, organizationId).transfers(YearMonth.now()).increment());
+        assignmentDeactivated(organizationId, oldMonthlyFee);
+    }
+
+    /**
+     * Resumen de la organización; con organizationId nulo suma todas
+     */
+    public OrganizationSummaryResponse snapshot(String organizationId) {
+        Map<String, Counters> current = counters.get();
+        Collection<Counters> selected = organizationId == null
+                ? current.values()
+                : List.of(current.getOrDefault(organizationId, new Counters()));
+        YearMonth month = YearMonth.now();
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        Map<BoxType, Long> byType = new EnumMap<>(BoxType.class);
+        long activeAssignments = 0;
+        long feeCents = 0;
+        long transfers = 0;
+        for (Status status : Status.values()) {
+            byStatus.put(status, selected.stream().mapToLong(c -> c.byStatus.get(status).sum()).sum());
+        }
+        for (BoxType boxType : BoxType.values()) {
+            byType.put(boxType, selected.stream().mapToLong(c -> c.byType.get(boxType).sum()).sum());
+        }
+        for (Counters c : selected) {
+            activeAssignments += c.activeAssignments.sum();
+            feeCents += c.feeCents.sum();
+            transfers += c.transfersIn(month);
+        }
+        return OrganizationSummaryResponse.builder()
+                .organizationId(organizationId)
+                .totalBoxes(byStatus.values().stream().mapToLong(Long::longValue).sum())
+                .boxesByStatus(byStatus)
+                .boxesByType(byType)
+                .activeAssignments(activeAssignments)
+                .totalMonthlyFees(BigDecimal.valueOf(feeCents, 2))
+                .month(month)
+                .transfersThisMonth(transfers)
+                .lastReconciledAt(lastReconciledAt)
+                .build();
+    }
+
+    private void load(Map<String, Counters> fresh, SummaryRow row, YearMonth month) {
+        if (row.organizationId() == null) {
+            return;
+        }
+        Counters c = fresh.computeIfAbsent(row.organizationId(), k -> new Counters());
+        switch (row.kind()) {
+            case "BOX" -> {
+                if (row.status() != null) {
+                    c.byStatus.get(Status.valueOf(row.status())).add(row.total());
+                }
+                if (row.boxType() != null) {
+                    c.byType.get(BoxType.valueOf(row.boxType())).add(row.total());
+                }
+            }
+            case "ASSIGNMENT" -> {
+                c.activeAssignments.add(row.total());
+                c.feeCents.add(row.feeCents());
+            }
+            case "TRANSFER" -> c.transfers(month).add(row.total());
+            default -> log.warn("Fila de resumen desconocida: {}", row.kind());
+        }
+    }
+
+    private void countBox(String organizationId, Status status, BoxType boxType, int delta) {
+        if (organizationId == null) {
+            return;
+        }
+        apply(map -> {
+            Counters c = of(map, organizationId);
+            if (status != null) {
+                c.byStatus.get(status).add(delta);
+            }
+            if (boxType != null) {
+                c.byType.get(boxType).add(delta);
+            }
+        });
+    }
+
+    private void countAssignment(String organizationId, BigDecimal monthlyFee, int delta) {
+        if (organizationId == null) {
+            return;
+        }
+        long feeCents = delta * toCents(monthlyFee);
+        apply(map -> {
+            Counters c = of(map, organizationId);
+            c.activeAssignments.add(delta);
+            c.feeCents.add(feeCents);
+        });
+    }
+
+    private void countBoxTotals(String organizationId, BoxTotals totals, int sign) {
+        if (organizationId == null) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        apply(map -> {
+            Counters c = of(map, organizationId);
+            c.activeAssignments.add(sign * totals.activeAssignments());
+            c.feeCents.add(sign * totals.feeCents());
+            c.transfers(month).add(sign * totals.transfers());
+        });
+    }
+
+    /**
+     * Aplica el delta a los contadores vigentes y, si hay una reconciliación en curso,
+     * lo anota para repetirlo sobre los contadores que la reemplazan
+     */
+    private void apply(Consumer<Map<String, Counters>> delta) {
+        Lock lock = swapLock.readLock();
+        lock.lock();
+        try {
+            delta.accept(counters.get());
+            if (pendingDeltas != null) {
+                pendingDeltas.add(delta);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void swap(Map<String, Counters> fresh) {
+        withWriteLock(() -> {
+            if (pendingDeltas != null) {
+                pendingDeltas.forEach(delta -> delta.accept(fresh));
+                pendingDeltas = null;
+            }
+            counters.set(fresh);
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        Lock lock = swapLock.writeLock();
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counters of(Map<String, Counters> map, String organizationId) {
+        return map.computeIfAbsent(organizationId, k -> new Counters());
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class Counters {
+        private final Map<Status, LongAdder> byStatus = new EnumMap<>(Status.class);
+        private final Map<BoxType, LongAdder> byType = new EnumMap<>(BoxType.class);
+        private final LongAdder activeAssignments = new LongAdder();
+        private final LongAdder feeCents = new LongAdder();
+        // Transferencias del mes indicado; al cambiar de mes el contador empieza en cero
+        private final AtomicReference<MonthCount> transfers = new AtomicReference<>(new MonthCount(YearMonth.now(), new LongAdder()));
+
+        private Counters() {
+            // Los mapas se llenan aquí y no cambian: las lecturas concurrentes no necesitan bloqueo
+            for (Status status : Status.values()) {
+                byStatus.put(status, new LongAdder());
+            }
+            for (BoxType boxType : BoxType.values()) {
+                byType.put(boxType, new LongAdder());
+            }
+        }
+
+        private LongAdder transfers(YearMonth month) {
+            return transfers.updateAndGet(current -> current.month().equals(month)
+                    ? current
+                    : new MonthCount(month, new LongAdder())).count();
+        }
+
+        private long transfersIn(YearMonth month) {
+            MonthCount current = transfers.get();
+            return Objects.equals(current.month(), month) ? current.count().sum() : 0;
+        }
+    }
+
+    private record MonthCount(YearMonth month, LongAdder count) {
+    }
+}
@@ -8,7 +8,6 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
-import java.util.Map;
 
 @Service
 @Slf4j
@@ -26,123 +25,102 @@ public class ReactiveJwtService {
                 .doOnNext(jwt -> log.debug("JWT obtenido del contexto: {}", jwt.getSubject()));
     }
 
+    /**
+     * Obtiene el usuario de la petición resuelto por CurrentUserWebFilter
+     */
+    public Mono<CurrentUser> getCurrentUser() {
+        return CurrentUser.current();
+    }
+
     /**
      * Obtiene el ID del usuario del JWT
      */
     public Mono<String> getCurrentUserId() {
-        return getCurrentJwt()
-                .map(Jwt::getSubject)
-                .doOnNext(userId -> log.debug("User ID extraído: {}", userId));
+        return getCurrentUser()
+                .mapNotNull(CurrentUser::getUserId);
     }
 
     /**
      * Obtiene el username preferido del JWT
      */
     public Mono<String> getCurrentUsername() {
-        return getCurrentJwt()
-                .map(jwt -> jwt.getClaimAsString("preferred_username"))
-                .doOnNext(username -> log.debug("Username extraído: {}", username));
+        return getCurrentUser()
+                .mapNotNull(CurrentUser::getUsername);
     }
 
     /**
      * Obtiene el email del JWT
      */
     public Mono<String> getCurrentUserEmail() {
-        return getCurrentJwt()
-                .map(jwt -> jwt.getClaimAsString("email"))
-                .doOnNext(email -> log.debug("Email extraído: {}", email));
+        return getCurrentUser()
+                .mapNotNull(CurrentUser::getEmail);
     }
 
     /**
      * Obtiene el nombre completo del JWT
      */
     public Mono<String> getCurrentUserFullName() {
-        return getCurrentJwt()
-                .map(jwt -> jwt.getClaimAsString("name"))
-                .doOnNext(name -> log.debug("Nombre completo extraído: {}", name));
+        return getCurrentUser()
+                .mapNotNull(CurrentUser::getFullName);
+    }
+
+    /**
+     * Obtiene la organización (JASS) del usuario desde el claim configurado.
+     * Vacío cuando el token no trae organización (p. ej. SUPER_ADMIN).
+     */
+    public Mono<String> getCurrentOrganizationId() {
+        return getCurrentUser()
+                .mapNotNull(CurrentUser::getOrganizationId);
     }
 
     /**
      * Obtiene los roles del realm_access del JWT
      */
-    @SuppressWarnings("unchecked")
     public Mono<List<String>> getCurrentUserRoles() {
-        return getCurrentJwt()
-                .map(jwt -> {
-                    try {
-                        Object realmAccess = jwt.getClaim("realm_access");
-                        if (realmAccess instanceof Map) {
-                            Map<String, Object> realmMap = (Map<String, Object>) realmAccess;
-                            Object roles = realmMap.get("roles");
-                            if (roles instanceof List) {
-                                return (List<String>) roles;
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("Error extrayendo roles de realm_access: {}", e.getMessage());
-                    }
-                    return List.<String>of();
-                })
-                .doOnNext(roles -> log.debug("Roles extraídos: {}", roles));
+        return getCurrentUser()
+                .map(CurrentUser::getRoles);
     }
 
     /**
      * Verifica si el usuario actual tiene un rol específico
      */
     public Mono<Boolean> hasRole(String role) {
-        return getCurrentUserRoles()
-                .map(roles -> roles.contains(role))
-                .doOnNext(hasRole -> log.debug("Usuario tiene rol '{}': {}", role, hasRole));
+        return getCurrentUser()
+                .map(user -> user.hasRole(role));
     }
 
     /**
      * Verifica si el usuario actual tiene alguno de los roles especificados
      */
     public Mono<Boolean> hasAnyRole(String... roles) {
-        return getCurrentUserRoles()
-                .map(userRoles -> {
+        return getCurrentUser()
+                .map(user -> {
                     for (String role : roles) {
-                        if (userRoles.contains(role)) {
+                        if (user.hasRole(role)) {
                             return true;
                         }
                     }
                     return false;
-                })
-                .doOnNext(hasAnyRole -> log.debug("Usuario tiene alguno de los roles {}: {}", List.of(roles), hasAnyRole));
+                });
     }
 
     /**
      * Obtiene información completa del usuario actual
      */
     public Mono<UserInfo> getCurrentUserInfo() {
-        return getCurrentJwt()
-                .map(jwt -> {
+        return getCurrentUser()
+                .map(user -> {
                     UserInfo userInfo = new UserInfo();
-                    userInfo.setUserId(jwt.getSubject());
-                    userInfo.setUsername(jwt.getClaimAsString("preferred_username"));
-                    userInfo.setEmail(jwt.getClaimAsString("email"));
-                    userInfo.setFullName(jwt.getClaimAsString("name"));
-                    userInfo.setGivenName(jwt.getClaimAsString("given_name"));
-                    userInfo.setFamilyName(jwt.getClaimAsString("family_name"));
-                    
-                    // Extraer roles
-                    try {
-                        Object realmAccess = jwt.getClaim("realm_access");
-                        if (realmAccess instanceof Map) {
-                            Map<String, Object> realmMap = (Map<String, Object>) realmAccess;
-                            Object roles = realmMap.get("roles");
-                            if (roles instanceof List) {
-                                userInfo.setRoles((List<String>) roles);
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("Error extrayendo roles: {}", e.getMessage());
-                        userInfo.setRoles(List.of());
-                    }
-                    
+                    userInfo.setUserId(user.getUserId());
+                    userInfo.setUsername(user.getUsername());
+                    userInfo.setEmail(user.getEmail());
+                    userInfo.setFullName(user.getFullName());
+                    userInfo.setGivenName(user.getGivenName());
+                    userInfo.setFamilyName(user.getFamilyName());
+                    userInfo.setOrganizationId(user.getOrganizationId());
+                    userInfo.setRoles(user.getRoles());
                     return userInfo;
-                })
-                .doOnNext(userInfo -> log.debug("UserInfo completa extraída: {}", userInfo));
+                });
     }
 
     /**
@@ -155,6 +133,7 @@ public class ReactiveJwtService {
         private String fullName;
         private String givenName;
         private String familyName;
+        private String organizationId;
         private List<String> roles;
 
         // Getters y Setters
@@ -176,6 +155,9 @@ public class ReactiveJwtService {
         public String getFamilyName() { return familyName; }
         public void setFamilyName(String familyName) { this.familyName = familyName; }
 
+        public String getOrganizationId() { return organizationId; }
+        public void setOrganizationId(String organizationId) { this.organizationId = organizationId; }
+
         public List<String> getRoles() { return roles; }
         public void setRoles(List<String> roles) { this.roles = roles; }
 
@@ -186,6 +168,7 @@ public class ReactiveJwtService {
                     ", username='" + username + '\'' +
                     ", email='" + email + '\'' +
                     ", fullName='" + fullName + '\'' +
+                    ", organizationId='" + organizationId + '\'' +
                     ", roles=" + roles +
                     '}';
         }
@@ -0,0 +1,92 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Desglose por fases del tiempo de una petición (jwt-decode, jwt-convert, db-acquire,
+ * db, service, encode). Lo crea RequestTimingWebFilter y viaja en el contexto de
+ * Reactor; los puntos instrumentados suman su duración con {@link #time(String, Mono)}
+ * o {@link #record(String, long)}. Fuera de una petición no se registra nada.
+ * Las fases pueden solaparse (consultas en paralelo, db dentro de service), por lo
+ * que su suma no tiene por qué coincidir con el total.
+ */
+public final class RequestTiming {
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    public static Mono<RequestTiming> current() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(RequestTiming.class)));
+    }
+
+    /**
+     * Suma a la fase el tiempo entre la suscripción y la señal final de mono
+     */
+    public static <T> Mono<T> time(String phase, Mono<T> mono) {
+        return Mono.deferContextual(context -> context.<RequestTiming>getOrEmpty(RequestTiming.class)
+                .map(timing -> {
+                    long start = System.nanoTime();
+                    return mono.doFinally(signal -> timing.record(phase, System.nanoTime() - start));
+                })
+                .orElse(mono));
+    }
+
+    public static <T> Flux<T> time(String phase, Flux<T> flux) {
+        return Flux.deferContextual(context -> context.<RequestTiming>getOrEmpty(RequestTiming.class)
+                .map(timing -> {
+                    long start = System.nanoTime();
+                    return flux.doFinally(signal -> timing.record(phase, System.nanoTime() - start));
+                })
+                .orElse(flux));
+    }
+
+    public synchronized void record(String phase, long nanos) {
+        phases.computeIfAbsent(phase, k -> new Phase()).add(nanos);
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Valor de la cabecera Server-Timing, p. ej. jwt-decode;dur=3.1, db;dur=8.4;desc="2", total;dur=15.0
+     */
+    public synchronized String toServerTiming() {
+        String phaseMetrics = phases.entrySet().stream()
+                .map(entry -> entry.getKey() + ";dur=" + millis(entry.getValue().nanos)
+                        + ";desc=\"" + entry.getValue().count + "\"")
+                .collect(Collectors.joining(", "));
+        String total = "total;dur=" + millis(elapsedNanos());
+        return phaseMetrics.isEmpty() ? total : phaseMetrics + ", " + total;
+    }
+
+    /**
+     * Fases en formato clave=valor para el log de acceso, p. ej. db_ms=8.4 db_count=2
+     */
+    public synchronized String toLogFields() {
+        return phases.entrySet().stream()
+                .map(entry -> entry.getKey().replace('-', '_') + "_ms=" + millis(entry.getValue().nanos)
+                        + " " + entry.getKey().replace('-', '_') + "_count=" + entry.getValue().count)
+                .collect(Collectors.joining(" "));
+    }
+
+    public static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private static final class Phase {
+        private long nanos;
+        private int count;
+
+        private void add(long elapsed) {
+            nanos += elapsed;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.RevenueReportRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suma parcial del reporte de ingresos por organización y tipo de caja.
+ * Cada asignación aporta su tarifa por cada mes del rango en que estuvo vigente
+ * (el mes de inicio y el de fin cuentan completos; sin end_date sigue vigente).
+ * "projected" cubre todo el rango; "actual" solo hasta el mes en curso.
+ * Los montos se llevan en céntimos (long); BigDecimal solo al armar la respuesta.
+ * No es thread-safe: cada hilo llena la suya y luego se combinan con merge().
+ */
+public final class RevenueAccumulator {
+
+    private static final int ACTUAL = 0;
+    private static final int PROJECTED = 1;
+    private static final int ASSIGNMENTS = 2;
+
+    private final int fromMonth;
+    private final int toMonth;
+    private final int currentMonth;
+    private final Map<Key, long[]> totals = new HashMap<>();
+
+    public RevenueAccumulator(YearMonth from, YearMonth to, YearMonth current) {
+        this.fromMonth = index(from);
+        this.toMonth = index(to);
+        this.currentMonth = index(current);
+    }
+
+    public RevenueAccumulator add(String organizationId, String boxType, long feeCents,
+                                  LocalDateTime startDate, LocalDateTime endDate) {
+        int first = Math.max(index(YearMonth.from(startDate)), fromMonth);
+        int last = endDate == null ? toMonth : Math.min(index(YearMonth.from(endDate)), toMonth);
+        if (first > last) {
+            return this;
+        }
+        long[] sums = totals.computeIfAbsent(new Key(organizationId, boxType), k -> new long[3]);
+        sums[PROJECTED] += feeCents * (last - first + 1);
+        int lastActual = Math.min(last, currentMonth);
+        if (lastActual >= first) {
+            sums[ACTUAL] += feeCents * (lastActual - first + 1);
+        }
+        sums[ASSIGNMENTS]++;
+        return this;
+    }
+
+    public RevenueAccumulator merge(RevenueAccumulator other) {
+        other.totals.forEach((key, sums) -> {
+            long[] target = totals.computeIfAbsent(key, k -> new long[3]);
+            for (int i = 0; i < target.length; i++) {
+                target[i] += sums[i];
+            }
+        });
+        return this;
+    }
+
+    public List<RevenueReportRow> toRows() {
+        return totals.entrySet().stream()
+                .map(entry -> RevenueReportRow.builder()
+                        .organizationId(entry.getKey().organizationId())
+                        .boxType(entry.getKey().boxType() == null ? null : BoxType.valueOf(entry.getKey().boxType()))
+                        .actual(BigDecimal.valueOf(entry.getValue()[ACTUAL], 2))
+                        .projected(BigDecimal.valueOf(entry.getValue()[PROJECTED], 2))
+                        .assignments(entry.getValue()[ASSIGNMENTS])
+                        .build())
+                .sorted(Comparator.comparing(RevenueReportRow::getOrganizationId)
+                        .thenComparing(row -> row.getBoxType() == null ? "" : row.getBoxType().name()))
+                .toList();
+    }
+
+    public long totalActualCents() {
+        return totals.values().stream().mapToLong(sums -> sums[ACTUAL]).sum();
+    }
+
+    public long totalProjectedCents() {
+        return totals.values().stream().mapToLong(sums -> sums[PROJECTED]).sum();
+    }
+
+    private static int index(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private record Key(String organizationId, String boxType) {
+    }
+}
@@ -0,0 +1,30 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acciones que solo deben ocurrir si la transacción en curso hace commit
+ * (contadores del resumen, auditoría). Sin transacción se ejecutan al momento.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    public static Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCompletion(int status) {
+                        return status == STATUS_COMMITTED ? Mono.fromRunnable(action) : Mono.empty();
+                    }
+                }))
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .switchIfEmpty(Mono.fromRunnable(action))
+                .then();
+    }
+}
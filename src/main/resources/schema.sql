@@ -10,7 +10,9 @@ CREATE TABLE IF NOT EXISTS water_boxes (
     installation_date DATE NOT NULL,
     current_assignment_id BIGINT,
     status VARCHAR(10) NOT NULL CHECK (status IN ('ACTIVE', 'INACTIVE')) DEFAULT 'ACTIVE',
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Tabla de asignaciones de cajas de agua
@@ -24,6 +26,8 @@ CREATE TABLE IF NOT EXISTS water_box_assignments (
     status VARCHAR(10) NOT NULL CHECK (status IN ('ACTIVE', 'INACTIVE')) DEFAULT 'ACTIVE',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     transfer_id BIGINT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (water_box_id) REFERENCES water_boxes(id)
 );
 
@@ -41,32 +45,157 @@ CREATE TABLE IF NOT EXISTS water_box_transfers (
     FOREIGN KEY (new_assignment_id) REFERENCES water_box_assignments(id)
 );
 
+-- Respuestas de los POST con cabecera Idempotency-Key (solo con app.idempotency.persistent)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key_hash CHAR(64) PRIMARY KEY,
+    fingerprint CHAR(64) NOT NULL,
+    response_body TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- Auditoría de escrituras (se llena en segundo plano por lotes, ver AuditTrail)
+CREATE TABLE IF NOT EXISTS audit_events (
+    id BIGSERIAL PRIMARY KEY,
+    user_id VARCHAR(255),
+    username VARCHAR(255),
+    action VARCHAR(20) NOT NULL,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id BIGINT,
+    before_summary TEXT,
+    after_summary TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Columna de versión (bloqueo optimista) para bases creadas antes de agregarla
+ALTER TABLE water_boxes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE water_box_assignments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Última modificación: siembra las versiones de cambio que respaldan los ETag
+ALTER TABLE water_boxes ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE water_box_assignments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
 -- Índices para mejorar el rendimiento
 CREATE INDEX IF NOT EXISTS idx_water_boxes_status ON water_boxes(status);
 CREATE INDEX IF NOT EXISTS idx_water_boxes_organization ON water_boxes(organization_id);
 CREATE INDEX IF NOT EXISTS idx_water_boxes_code ON water_boxes(box_code);
+-- Paginación keyset por estado (WHERE status = ? AND id > ? ORDER BY id)
+CREATE INDEX IF NOT EXISTS idx_water_boxes_status_id ON water_boxes(status, id);
+-- Consultas por organización (JASS del token): WHERE organization_id = ? AND status = ? AND id > ?
+CREATE INDEX IF NOT EXISTS idx_water_boxes_org_status_id ON water_boxes(organization_id, status, id);
 
 CREATE INDEX IF NOT EXISTS idx_assignments_status ON water_box_assignments(status);
 CREATE INDEX IF NOT EXISTS idx_assignments_water_box ON water_box_assignments(water_box_id);
 CREATE INDEX IF NOT EXISTS idx_assignments_user ON water_box_assignments(user_id);
+CREATE INDEX IF NOT EXISTS idx_assignments_status_id ON water_box_assignments(status, id);
+-- Join de asignaciones con las cajas de una organización
+CREATE INDEX IF NOT EXISTS idx_assignments_water_box_status_id ON water_box_assignments(water_box_id, status, id);
 
 CREATE INDEX IF NOT EXISTS idx_transfers_water_box ON water_box_transfers(water_box_id);
 CREATE INDEX IF NOT EXISTS idx_transfers_old_assignment ON water_box_transfers(old_assignment_id);
 CREATE INDEX IF NOT EXISTS idx_transfers_new_assignment ON water_box_transfers(new_assignment_id);
 
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys(expires_at);
+
+-- Historial de una entidad y consultas por usuario
+CREATE INDEX IF NOT EXISTS idx_audit_events_entity ON audit_events(entity_type, entity_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_audit_events_user ON audit_events(user_id, created_at);
+
+-- Avisos de cambios para GET /api/admin/changes/stream (LISTEN infra_changes).
+-- NOTIFY se entrega solo al hacer commit, así que no se anuncian escrituras revertidas.
+-- Triggers por sentencia con tablas de transición: un aviso por organización (y
+-- organización anterior, si la caja cambió) aunque la sentencia toque muchas filas,
+-- como los lotes de la carga masiva. id y waterBoxId solo van cuando el aviso es de
+-- una fila; count indica cuántas filas agrupa.
+DROP TRIGGER IF EXISTS water_boxes_notify ON water_boxes;
+DROP TRIGGER IF EXISTS water_box_assignments_notify ON water_box_assignments;
+DROP TRIGGER IF EXISTS water_box_transfers_notify ON water_box_transfers;
+
+CREATE OR REPLACE FUNCTION notify_infra_change() RETURNS trigger AS $$
+DECLARE
+    changes REFCURSOR;
+    change RECORD;
+BEGIN
+    IF TG_TABLE_NAME = 'water_boxes' AND TG_OP = 'UPDATE' THEN
+        OPEN changes FOR
+            SELECT n.organization_id,
+                   CASE WHEN o.organization_id IS DISTINCT FROM n.organization_id THEN o.organization_id END AS previous_organization_id,
+                   COUNT(*) AS total, MIN(n.id) AS id, MIN(n.id) AS water_box_id
+            FROM new_rows n JOIN old_rows o ON o.id = n.id
+            GROUP BY 1, 2;
+    ELSIF TG_TABLE_NAME = 'water_boxes' THEN
+        OPEN changes FOR
+            SELECT organization_id, CAST(NULL AS VARCHAR) AS previous_organization_id,
+                   COUNT(*) AS total, MIN(id) AS id, MIN(id) AS water_box_id
+            FROM new_rows
+            GROUP BY 1;
+    ELSE
+        OPEN changes FOR
+            SELECT b.organization_id, CAST(NULL AS VARCHAR) AS previous_organization_id,
+                   COUNT(*) AS total, MIN(n.id) AS id, MIN(n.water_box_id) AS water_box_id
+            FROM new_rows n LEFT JOIN water_boxes b ON b.id = n.water_box_id
+            GROUP BY 1;
+    END IF;
+    LOOP
+        FETCH changes INTO change;
+        EXIT WHEN NOT FOUND;
+        PERFORM pg_notify('infra_changes', json_build_object(
+                'entity', TG_TABLE_NAME,
+                'operation', TG_OP,
+                'id', CASE WHEN change.total = 1 THEN change.id END,
+                'waterBoxId', CASE WHEN change.total = 1 THEN change.water_box_id END,
+                'organizationId', change.organization_id,
+                'previousOrganizationId', change.previous_organization_id,
+                'count', change.total)::text);
+    END LOOP;
+    CLOSE changes;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS water_boxes_notify_insert ON water_boxes;
+CREATE TRIGGER water_boxes_notify_insert AFTER INSERT ON water_boxes
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_infra_change();
+DROP TRIGGER IF EXISTS water_boxes_notify_update ON water_boxes;
+CREATE TRIGGER water_boxes_notify_update AFTER UPDATE ON water_boxes
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_infra_change();
+DROP TRIGGER IF EXISTS water_box_assignments_notify_insert ON water_box_assignments;
+CREATE TRIGGER water_box_assignments_notify_insert AFTER INSERT ON water_box_assignments
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_infra_change();
+DROP TRIGGER IF EXISTS water_box_assignments_notify_update ON water_box_assignments;
+CREATE TRIGGER water_box_assignments_notify_update AFTER UPDATE ON water_box_assignments
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_infra_change();
+DROP TRIGGER IF EXISTS water_box_transfers_notify_insert ON water_box_transfers;
+CREATE TRIGGER water_box_transfers_notify_insert AFTER INSERT ON water_box_transfers
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_infra_change();
+DROP TRIGGER IF EXISTS water_box_transfers_notify_update ON water_box_transfers;
+CREATE TRIGGER water_box_transfers_notify_update AFTER UPDATE ON water_box_transfers
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_infra_change();
+
 -- Comentarios para documentación
 COMMENT ON TABLE water_boxes IS 'Tabla que almacena información de las cajas de agua del sistema JASS';
 COMMENT ON TABLE water_box_assignments IS 'Tabla que almacena las asignaciones de cajas de agua a usuarios';
 COMMENT ON TABLE water_box_transfers IS 'Tabla que almacena el historial de transferencias de cajas de agua entre usuarios';
+COMMENT ON TABLE audit_events IS 'Registro de quién creó, modificó, eliminó, restauró o transfirió cada entidad';
 
 COMMENT ON COLUMN water_boxes.organization_id IS 'ID de la organización JASS a la que pertenece la caja de agua';
 COMMENT ON COLUMN water_boxes.box_code IS 'Código único identificador de la caja de agua';
 COMMENT ON COLUMN water_boxes.box_type IS 'Tipo de caja de agua: CAÑO, BOMBA, OTRO';
 COMMENT ON COLUMN water_boxes.current_assignment_id IS 'ID de la asignación actual activa (si existe)';
+COMMENT ON COLUMN water_boxes.version IS 'Versión de la fila para control de concurrencia optimista';
 
 COMMENT ON COLUMN water_box_assignments.user_id IS 'ID del usuario al que está asignada la caja de agua';
 COMMENT ON COLUMN water_box_assignments.monthly_fee IS 'Tarifa mensual en soles para esta asignación';
 COMMENT ON COLUMN water_box_assignments.transfer_id IS 'ID de la transferencia que inactivó esta asignación (si aplica)';
 
 COMMENT ON COLUMN water_box_transfers.transfer_reason IS 'Razón o motivo de la transferencia';
+COMMENT ON COLUMN audit_events.before_summary IS 'Entidad antes del cambio (JSON de la respuesta), nulo en creaciones';
+COMMENT ON COLUMN audit_events.after_summary IS 'Entidad después del cambio (JSON de la respuesta)';
+
 COMMENT ON COLUMN water_box_transfers.documents IS 'Documentos adjuntos relacionados con la transferencia (almacenados como texto separado por comas)';
\ No newline at end of file
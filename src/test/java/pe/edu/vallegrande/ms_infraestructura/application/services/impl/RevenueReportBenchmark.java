@@ -0,0 +1,151 @@
+package pe.edu.vallegrande.ms_infraestructura.application.services.impl;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.RevenueReportRow;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.RevenueQueryRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporte de ingresos: agregación en paralelo por bloques (RevenueReportService)
+ * contra el mismo cálculo con generate_series y GROUP BY en Postgres.
+ * Necesita una base con el esquema y datos representativos (idealmente el histórico
+ * completo); no escribe nada. La conexión se indica con variables de entorno:
+ * BENCHMARK_R2DBC_URL (r2dbc:postgresql://host/db), BENCHMARK_R2DBC_USERNAME y
+ * BENCHMARK_R2DBC_PASSWORD.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="-prof gc RevenueReport"
+ * Antes de medir verifica que ambos caminos den las mismas filas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RevenueReportBenchmark {
+
+    private static final String GROUP_BY_SQL = """
+            SELECT b.organization_id, b.box_type,
+                   SUM(CASE WHEN m.month <= :currentMonth THEN ROUND(a.monthly_fee * 100) ELSE 0 END)::BIGINT AS actual_cents,
+                   SUM(ROUND(a.monthly_fee * 100))::BIGINT AS projected_cents,
+                   COUNT(DISTINCT a.id) AS assignments
+            FROM water_box_assignments a JOIN water_boxes b ON b.id = a.water_box_id
+            CROSS JOIN LATERAL generate_series(
+                    GREATEST(date_trunc('month', a.start_date), :fromMonth),
+                    LEAST(date_trunc('month', COALESCE(a.end_date, :toMonth)), :toMonth),
+                    INTERVAL '1 month') AS m(month)
+            WHERE a.start_date < :toExclusive AND (a.end_date IS NULL OR a.end_date >= :fromMonth)
+            GROUP BY b.organization_id, b.box_type
+            """;
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+
+    // Meses del reporte, terminando en el mes en curso
+    @Param({"12", "120"})
+    public int months;
+
+    private ConnectionPool pool;
+    private DatabaseClient databaseClient;
+    private RevenueReportService service;
+    private YearMonth from;
+    private YearMonth to;
+    private YearMonth current;
+
+    @Setup
+    public void setUp() {
+        String url = System.getenv("BENCHMARK_R2DBC_URL");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Defina BENCHMARK_R2DBC_URL (y BENCHMARK_R2DBC_USERNAME / BENCHMARK_R2DBC_PASSWORD)");
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        String username = System.getenv("BENCHMARK_R2DBC_USERNAME");
+        String password = System.getenv("BENCHMARK_R2DBC_PASSWORD");
+        if (username != null) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .maxSize(4)
+                .build());
+        databaseClient = DatabaseClient.create(pool);
+
+        RevenueQueryRepository repository = new RevenueQueryRepository(databaseClient);
+        ReflectionTestUtils.setField(repository, "fetchSize", 1000);
+        service = new RevenueReportService(repository, null, 1000, 0, months);
+
+        current = YearMonth.now();
+        to = current;
+        from = current.minusMonths(months - 1L);
+
+        List<String> streamed = describe(streaming());
+        List<String> grouped = describe(sqlGroupBy());
+        if (!streamed.equals(grouped)) {
+            throw new IllegalStateException("Los dos caminos no coinciden:\n" + streamed + "\n" + grouped);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    public List<RevenueReportRow> streaming() {
+        return service.aggregate(null, from, to, current).block(TIMEOUT).toRows();
+    }
+
+    @Benchmark
+    public List<RevenueReportRow> sqlGroupBy() {
+        return databaseClient.sql(GROUP_BY_SQL)
+                .bind("fromMonth", from.atDay(1).atStartOfDay())
+                .bind("toMonth", to.atDay(1).atStartOfDay())
+                .bind("toExclusive", to.plusMonths(1).atDay(1).atStartOfDay())
+                .bind("currentMonth", current.atDay(1).atStartOfDay())
+                .map((row, metadata) -> RevenueReportRow.builder()
+                        .organizationId(row.get("organization_id", String.class))
+                        .boxType(toBoxType(row.get("box_type", String.class)))
+                        .actual(BigDecimal.valueOf(row.get("actual_cents", Long.class), 2))
+                        .projected(BigDecimal.valueOf(row.get("projected_cents", Long.class), 2))
+                        .assignments(row.get("assignments", Long.class))
+                        .build())
+                .all()
+                .collectList()
+                .block(TIMEOUT);
+    }
+
+    private static List<String> describe(List<RevenueReportRow> rows) {
+        return rows.stream()
+                .map(row -> row.getOrganizationId() + "|" + row.getBoxType() + "|" + row.getActual()
+                        + "|" + row.getProjected() + "|" + row.getAssignments())
+                .sorted()
+                .toList();
+    }
+
+    private static BoxType toBoxType(String boxType) {
+        return boxType == null ? null : BoxType.valueOf(boxType);
+    }
+}
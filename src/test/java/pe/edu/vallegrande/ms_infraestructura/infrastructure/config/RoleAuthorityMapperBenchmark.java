@@ -0,0 +1,101 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorities de un token de ADMIN: switch anterior de SecurityConfig (un HashSet y
+ * nuevas SimpleGrantedAuthority por petición) contra RoleAuthorityMapper.
+ * Las asignaciones por conversión se ven con el profiler gc (gc.alloc.rate.norm):
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="-prof gc RoleAuthorityMapper"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoleAuthorityMapperBenchmark {
+
+    // Lo que llega en un token típico de Keycloak
+    private final List<String> realmRoles = List.of("ADMIN", "offline_access", "uma_authorization");
+    private final List<String> permissions = List.of("EXPORT_DATA");
+
+    private RoleAuthorityMapper mapper;
+
+    @Setup
+    public void setUp() {
+        Map<String, List<String>> rolePermissions = new LinkedHashMap<>();
+        rolePermissions.put("SUPER_ADMIN", List.of("CREATE_ADMIN", "UPDATE_ADMIN", "DELETE_ADMIN", "VIEW_ALL_ADMINS", "MANAGE_SYSTEM", "DELETE_ANY_USER"));
+        rolePermissions.put("ADMIN", List.of("CREATE_CLIENT", "UPDATE_CLIENT", "DELETE_CLIENT", "VIEW_ORG_CLIENTS", "MANAGE_ORG", "RESTORE_CLIENT"));
+        rolePermissions.put("CLIENT", List.of("VIEW_OWN_PROFILE", "UPDATE_OWN_PROFILE"));
+        mapper = new RoleAuthorityMapper();
+        mapper.setRolePermissions(rolePermissions);
+        mapper.init();
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> perRequestSwitch() {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        realmRoles.forEach(role -> {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+            addPermissionsByRole(authorities, role);
+        });
+        permissions.forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission)));
+        return authorities;
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> precomputed() {
+        return mapper.map(realmRoles, null, permissions);
+    }
+
+    /**
+     * Copia del switch que tenía SecurityConfig (sin los log.debug)
+     */
+    private static void addPermissionsByRole(Set<GrantedAuthority> authorities, String role) {
+        switch (role) {
+            case "SUPER_ADMIN" -> {
+                authorities.add(new SimpleGrantedAuthority("CREATE_ADMIN"));
+                authorities.add(new SimpleGrantedAuthority("UPDATE_ADMIN"));
+                authorities.add(new SimpleGrantedAuthority("DELETE_ADMIN"));
+                authorities.add(new SimpleGrantedAuthority("VIEW_ALL_ADMINS"));
+                authorities.add(new SimpleGrantedAuthority("MANAGE_SYSTEM"));
+                authorities.add(new SimpleGrantedAuthority("DELETE_ANY_USER"));
+            }
+            case "ADMIN" -> {
+                authorities.add(new SimpleGrantedAuthority("CREATE_CLIENT"));
+                authorities.add(new SimpleGrantedAuthority("UPDATE_CLIENT"));
+                authorities.add(new SimpleGrantedAuthority("DELETE_CLIENT"));
+                authorities.add(new SimpleGrantedAuthority("VIEW_ORG_CLIENTS"));
+                authorities.add(new SimpleGrantedAuthority("MANAGE_ORG"));
+                authorities.add(new SimpleGrantedAuthority("RESTORE_CLIENT"));
+            }
+            case "CLIENT" -> {
+                authorities.add(new SimpleGrantedAuthority("VIEW_OWN_PROFILE"));
+                authorities.add(new SimpleGrantedAuthority("UPDATE_OWN_PROFILE"));
+            }
+            default -> {
+                // Rol sin permisos predefinidos
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoleAuthorityMapperTest {
+
+    private final RoleAuthorityMapper mapper = new RoleAuthorityMapper();
+
+    @BeforeEach
+    void setUp() {
+        Map<String, List<String>> rolePermissions = new LinkedHashMap<>();
+        rolePermissions.put("SUPER_ADMIN", List.of("CREATE_ADMIN", "MANAGE_SYSTEM"));
+        rolePermissions.put("ADMIN", List.of("CREATE_CLIENT", " MANAGE_ORG"));
+        rolePermissions.put("CLIENT", List.of("VIEW_OWN_PROFILE"));
+        mapper.setRolePermissions(rolePermissions);
+        mapper.init();
+    }
+
+    @Test
+    void expandsEachRoleIntoItsPermissions() {
+        assertEquals(Set.of("ROLE_ADMIN", "CREATE_CLIENT", "MANAGE_ORG"), names(mapper.map(List.of("ADMIN"), null, List.of())));
+        assertEquals(Set.of("ROLE_offline_access"), names(mapper.map(List.of("offline_access"), null, List.of())));
+    }
+
+    @Test
+    void combinesRealmRolesCustomRoleAndPermissionsClaim() {
+        Collection<GrantedAuthority> authorities = mapper.map(List.of("ADMIN", "offline_access"), "CLIENT", List.of("EXPORT_DATA"));
+
+        assertEquals(Set.of("ROLE_ADMIN", "CREATE_CLIENT", "MANAGE_ORG", "ROLE_offline_access",
+                "ROLE_CLIENT", "VIEW_OWN_PROFILE", "EXPORT_DATA"), names(authorities));
+    }
+
+    @Test
+    void sameCombinationReusesTheSameImmutableSet() {
+        Collection<GrantedAuthority> first = mapper.map(List.of("ADMIN"), null, List.of());
+        // Otra lista con el mismo contenido, como llega al decodificar otro token
+        Collection<GrantedAuthority> second = mapper.map(new ArrayList<>(List.of("ADMIN")), null, new ArrayList<>());
+        Collection<GrantedAuthority> other = mapper.map(List.of("CLIENT"), null, List.of());
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertThrows(UnsupportedOperationException.class, () -> first.add(new SimpleGrantedAuthority("HACK")));
+    }
+
+    @Test
+    void authoritiesAreSharedBetweenCombinations() {
+        GrantedAuthority fromAdmin = find(mapper.map(List.of("ADMIN"), null, List.of()), "ROLE_ADMIN");
+        GrantedAuthority fromCombination = find(mapper.map(List.of("ADMIN"), "CLIENT", List.of()), "ROLE_ADMIN");
+
+        assertSame(fromAdmin, fromCombination);
+        assertSame(mapper.authoritiesForRole("ADMIN"), mapper.authoritiesForRole("ADMIN"));
+    }
+
+    private static Set<String> names(Collection<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+
+    private static GrantedAuthority find(Collection<GrantedAuthority> authorities, String name) {
+        return authorities.stream().filter(authority -> authority.getAuthority().equals(name)).findFirst().orElseThrow();
+    }
+}
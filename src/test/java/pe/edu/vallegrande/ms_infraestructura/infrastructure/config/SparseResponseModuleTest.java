@@ -0,0 +1,83 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.BoxType;
+import pe.edu.vallegrande.ms_infraestructura.domain.enums.Status;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.request.PageQuery;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.PageResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxAssignmentResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxTransferResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SparseResponseModuleTest {
+
+    private final ObjectMapper plain = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final ObjectMapper sparseAware = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .addModule(new SparseResponseModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void fullResponsesSerializeAsWithoutTheModule() throws Exception {
+        List<Object> values = List.of(
+                WaterBoxResponse.builder().id(1L).organizationId("org-1").boxCode("CA-001").boxType(BoxType.CAÑO)
+                        .installationDate(LocalDate.of(2024, 2, 29)).currentAssignmentId(7L).status(Status.ACTIVE)
+                        .createdAt(LocalDateTime.of(2024, 3, 1, 8, 0)).build(),
+                WaterBoxAssignmentResponse.builder().id(7L).waterBoxId(1L).userId("u-1")
+                        .startDate(LocalDateTime.of(2024, 3, 1, 8, 0, 15, 120_000_000)).monthlyFee(new BigDecimal("12.50"))
+                        .status(Status.INACTIVE).createdAt(LocalDateTime.of(2024, 3, 1, 8, 0)).transferId(3L).build(),
+                WaterBoxTransferResponse.builder().id(3L).waterBoxId(1L).oldAssignmentId(7L).newAssignmentId(8L)
+                        .transferReason("Venta \"del\" predio").documents(List.of("a.pdf", "b.pdf"))
+                        .createdAt(LocalDateTime.of(2024, 5, 1, 0, 0)).build(),
+                // Respuesta completa con atributos null: se envían como null
+                WaterBoxResponse.builder().id(2L).boxCode("CA-002").build(),
+                WaterBoxTransferResponse.builder().id(4L).documents(List.of()).build());
+
+        for (Object value : values) {
+            assertEquals(plain.writeValueAsString(value), sparseAware.writeValueAsString(value));
+        }
+    }
+
+    @Test
+    void fullResponsesKeepExplicitNulls() throws Exception {
+        WaterBoxAssignmentResponse open = WaterBoxAssignmentResponse.builder().id(7L).waterBoxId(1L).status(Status.ACTIVE).build();
+
+        assertEquals("{\"id\":7,\"waterBoxId\":1,\"userId\":null,\"startDate\":null,\"endDate\":null,\"monthlyFee\":null,"
+                + "\"status\":\"ACTIVE\",\"createdAt\":null,\"transferId\":null}", sparseAware.writeValueAsString(open));
+    }
+
+    @Test
+    void sparseResponsesOmitTheFieldsThatWereNotRequested() throws Exception {
+        WaterBoxResponse box = WaterBoxResponse.builder().id(2L).boxCode("CA-002").sparse(true).build();
+        WaterBoxTransferResponse transfer = WaterBoxTransferResponse.builder().id(4L).documents(List.of()).sparse(true).build();
+
+        assertEquals("{\"id\":2,\"boxCode\":\"CA-002\"}", sparseAware.writeValueAsString(box));
+        assertEquals("{\"id\":4,\"documents\":[]}", sparseAware.writeValueAsString(transfer));
+    }
+
+    @Test
+    void appliesToDtosNestedInPages() throws Exception {
+        WaterBoxResponse box = WaterBoxResponse.builder().id(1L).boxType(BoxType.BOMBA).sparse(true).build();
+        PageResponse<WaterBoxResponse> page = PageResponse.of(List.of(box), PageQuery.of(null, 20), WaterBoxResponse::getId);
+
+        // La página no es parcial: su "next" null se mantiene
+        assertEquals("{\"items\":[{\"id\":1,\"boxType\":\"BOMBA\"}],\"size\":1,\"next\":null}",
+                sparseAware.writeValueAsString(page));
+    }
+}
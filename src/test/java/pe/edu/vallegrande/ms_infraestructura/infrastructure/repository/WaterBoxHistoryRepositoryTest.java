@@ -0,0 +1,167 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.repository;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import pe.edu.vallegrande.ms_infraestructura.domain.models.WaterBoxTransfer;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.WaterBoxHistoryEntry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Consulta de historial contra Postgres real, en un esquema temporal con schema.sql.
+ * Solo corre si se define TEST_R2DBC_URL (r2dbc:postgresql://host/db), con
+ * TEST_R2DBC_USERNAME y TEST_R2DBC_PASSWORD si hacen falta.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_R2DBC_URL", matches = ".+")
+class WaterBoxHistoryRepositoryTest {
+
+    private static final String SCHEMA = "history_test_" + ProcessHandle.current().pid();
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static DatabaseClient admin;
+    private static DatabaseClient databaseClient;
+
+    private WaterBoxHistoryRepository historyRepository;
+    private WaterBoxTransferCommandRepository transferRepository;
+    private long waterBoxId;
+
+    @BeforeAll
+    static void createSchema() throws IOException {
+        admin = DatabaseClient.create(connectionFactory(null));
+        admin.sql("CREATE SCHEMA " + SCHEMA).then().block(TIMEOUT);
+        databaseClient = DatabaseClient.create(connectionFactory(SCHEMA));
+        String schemaSql = new ClassPathResource("schema.sql").getContentAsString(StandardCharsets.UTF_8);
+        databaseClient.sql(schemaSql).then().block(TIMEOUT);
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (admin != null) {
+            admin.sql("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE").then().block(TIMEOUT);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        historyRepository = new WaterBoxHistoryRepository(databaseClient);
+        MappingR2dbcConverter converter = new MappingR2dbcConverter(new R2dbcMappingContext(),
+                R2dbcCustomConversions.of(PostgresDialect.INSTANCE, List.of()));
+        transferRepository = new WaterBoxTransferCommandRepository(databaseClient, converter);
+        waterBoxId = databaseClient.sql("""
+                        INSERT INTO water_boxes (organization_id, box_code, box_type, installation_date)
+                        VALUES ('org-1', :boxCode, 'CAÑO', CURRENT_DATE) RETURNING id""")
+                .bind("boxCode", "CA-" + System.nanoTime())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block(TIMEOUT);
+    }
+
+    @Test
+    void transferBackToARestoredAssignmentIsAnotherStep() {
+        long a = assignment("u-a");
+        long b = assignment("u-b");
+        setCurrentAssignment(a);
+
+        assertEquals("OK", transfer(a, b));
+        // Restaurar A: vuelve a estar activa sin ser la asignación actual de la caja
+        databaseClient.sql("UPDATE water_box_assignments SET status = 'ACTIVE', end_date = NULL WHERE id = :id")
+                .bind("id", a).then().block(TIMEOUT);
+        assertEquals("OK", transfer(b, a));
+
+        List<WaterBoxHistoryEntry> history = history();
+
+        assertEquals(List.of("ASSIGNMENT:" + a, "TRANSFER:" + a + ">" + b, "ASSIGNMENT:" + b,
+                "TRANSFER:" + b + ">" + a, "ASSIGNMENT:" + a), describe(history));
+        assertEquals(List.of(0, 1, 1, 2, 2), history.stream().map(WaterBoxHistoryEntry::getStep).toList());
+        history.forEach(entry -> assertEquals(a, entry.getChainId()));
+    }
+
+    @Test
+    void anAssignmentWithoutTransfersIsItsOwnChain() {
+        long a = assignment("u-a");
+        long b = assignment("u-b");
+        long c = assignment("u-c");
+        setCurrentAssignment(a);
+        assertEquals("OK", transfer(a, b));
+
+        assertEquals(List.of("ASSIGNMENT:" + a, "TRANSFER:" + a + ">" + b, "ASSIGNMENT:" + b, "ASSIGNMENT:" + c),
+                describe(history()));
+    }
+
+    private long assignment(String userId) {
+        return databaseClient.sql("""
+                        INSERT INTO water_box_assignments (water_box_id, user_id, start_date, monthly_fee)
+                        VALUES (:waterBoxId, :userId, CURRENT_TIMESTAMP, 10) RETURNING id""")
+                .bind("waterBoxId", waterBoxId)
+                .bind("userId", userId)
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block(TIMEOUT);
+    }
+
+    private void setCurrentAssignment(long assignmentId) {
+        databaseClient.sql("UPDATE water_boxes SET current_assignment_id = :assignmentId WHERE id = :id")
+                .bind("assignmentId", assignmentId)
+                .bind("id", waterBoxId)
+                .then()
+                .block(TIMEOUT);
+    }
+
+    private String transfer(long oldAssignmentId, long newAssignmentId) {
+        WaterBoxTransfer transfer = WaterBoxTransfer.builder()
+                .waterBoxId(waterBoxId)
+                .oldAssignmentId(oldAssignmentId)
+                .newAssignmentId(newAssignmentId)
+                .transferReason("Venta del predio")
+                .createdAt(LocalDateTime.now())
+                .build();
+        return transferRepository.transfer(transfer).block(TIMEOUT).outcome();
+    }
+
+    private List<WaterBoxHistoryEntry> history() {
+        return historyRepository.findHistory(waterBoxId).collectList().block(TIMEOUT);
+    }
+
+    private static List<String> describe(List<WaterBoxHistoryEntry> history) {
+        return history.stream()
+                .map(entry -> "TRANSFER".equals(entry.getType())
+                        ? "TRANSFER:" + entry.getTransfer().getOldAssignmentId() + ">" + entry.getTransfer().getNewAssignmentId()
+                        : "ASSIGNMENT:" + entry.getAssignment().getId())
+                .toList();
+    }
+
+    private static ConnectionFactory connectionFactory(String schema) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(System.getenv("TEST_R2DBC_URL")).mutate();
+        String username = System.getenv("TEST_R2DBC_USERNAME");
+        String password = System.getenv("TEST_R2DBC_PASSWORD");
+        if (username != null) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        if (schema != null) {
+            options.option(Option.valueOf("schema"), schema);
+        }
+        return ConnectionFactories.get(options.build());
+    }
+}
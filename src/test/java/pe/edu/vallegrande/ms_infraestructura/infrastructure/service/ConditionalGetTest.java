@@ -0,0 +1,111 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.service.ChangeVersionRegistry.ChangeEntity;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConditionalGetTest {
+
+    private final ChangeVersionRegistry registry = mock(ChangeVersionRegistry.class);
+    private final ConditionalGet conditionalGet = new ConditionalGet(registry);
+
+    @Test
+    void successfulBodyCarriesEtagAndCacheControl() {
+        when(registry.version(isNull(), any())).thenReturn(3L);
+        MockServerWebExchange exchange = exchange(null);
+
+        assertEquals("caja", conditionalGet.global(exchange, ChangeEntity.WATER_BOXES, () -> Mono.just("caja")).block());
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertNotNull(headers.getETag());
+        assertEquals("no-cache, private", headers.getCacheControl());
+    }
+
+    @Test
+    void failedOrEmptyBodyCarriesNoEtag() {
+        when(registry.version(isNull(), any())).thenReturn(3L);
+        MockServerWebExchange denied = exchange(null);
+        MockServerWebExchange notFound = exchange(null);
+
+        assertThrows(AccessDeniedException.class, () -> conditionalGet.global(denied, ChangeEntity.WATER_BOXES,
+                () -> Mono.error(new AccessDeniedException("otra organización"))).block());
+        assertNull(conditionalGet.global(notFound, ChangeEntity.WATER_BOXES, Mono::empty).block());
+
+        for (MockServerWebExchange exchange : new MockServerWebExchange[]{denied, notFound}) {
+            assertNull(exchange.getResponse().getHeaders().getETag());
+            assertNull(exchange.getResponse().getHeaders().getCacheControl());
+        }
+    }
+
+    @Test
+    void matchingIfNoneMatchAnswersNotModifiedWithoutRunningTheBody() {
+        when(registry.version(isNull(), any())).thenReturn(3L);
+        MockServerWebExchange first = exchange(null);
+        conditionalGet.global(first, ChangeEntity.WATER_BOXES, () -> Mono.just("caja")).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange second = exchange(etag);
+        assertNull(conditionalGet.global(second, ChangeEntity.WATER_BOXES,
+                () -> Mono.<String>error(new IllegalStateException("no debería consultar"))).block());
+
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getResponse().getStatusCode());
+        assertEquals(etag, second.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void organizationListWithoutOrganizationIsDeniedBeforeComparingEtags() {
+        when(registry.version(isNull(), any())).thenReturn(3L);
+        MockServerWebExchange superAdmin = exchange(null);
+        conditionalGet.forOrganization(superAdmin, ChangeEntity.WATER_BOXES, () -> Mono.just("cajas"))
+                .contextWrite(Context.of(CurrentUser.class, user("SUPER_ADMIN")))
+                .block();
+        String globalEtag = superAdmin.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange admin = exchange(globalEtag);
+        Mono<String> adminList = conditionalGet.forOrganization(admin, ChangeEntity.WATER_BOXES, () -> Mono.just("cajas"))
+                .contextWrite(Context.of(CurrentUser.class, user("ADMIN")));
+
+        assertThrows(AccessDeniedException.class, adminList::block);
+        assertNull(admin.getResponse().getStatusCode());
+        verify(registry, times(1)).version(isNull(), any());
+    }
+
+    private static CurrentUser user(String role) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("user-1")
+                .claim("preferred_username", "usuario")
+                .claim("realm_access", Map.of("roles", List.of(role)))
+                .build();
+        return CurrentUser.from(jwt, "organization_id");
+    }
+
+    private static MockServerWebExchange exchange(String ifNoneMatch) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v2/water-boxes/1");
+        if (ifNoneMatch != null) {
+            request.ifNoneMatch(ifNoneMatch);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
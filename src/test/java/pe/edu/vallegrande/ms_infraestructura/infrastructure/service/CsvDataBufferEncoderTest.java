@@ -0,0 +1,100 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvDataBufferEncoderTest {
+
+    private static final String[] HEADER = {"id", "box_code", "monthly_fee", "created_at"};
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    @Test
+    void writesRfc4180Rows() {
+        Flux<Object[]> rows = Flux.just(
+                new Object[]{1L, "CA-001", new BigDecimal("12.50"), LocalDateTime.of(2024, 3, 1, 8, 0)},
+                new Object[]{2L, "Caño \"norte\", lote 3", null, LocalDateTime.of(2024, 3, 2, 9, 30)});
+
+        String csv = new String(concat(encode(rows, 1, false)), StandardCharsets.UTF_8);
+
+        assertEquals("id,box_code,monthly_fee,created_at\r\n"
+                + "1,CA-001,12.50,2024-03-01T08:00\r\n"
+                + "2,\"Caño \"\"norte\"\", lote 3\",,2024-03-02T09:30\r\n", csv);
+    }
+
+    @Test
+    void gzipBuffersConcatenateIntoAValidGzipStream() throws IOException {
+        // Suficientes filas para varios bloques y más de un buffer interno del Deflater
+        List<Object[]> rows = IntStream.range(0, 5_000)
+                .mapToObj(i -> new Object[]{(long) i, "CA-" + i, BigDecimal.valueOf(i, 2), LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i)})
+                .toList();
+
+        byte[] plain = concat(encode(Flux.fromIterable(rows), 500, false));
+        List<byte[]> gzipChunks = encode(Flux.fromIterable(rows), 500, true);
+        byte[] gzip = concat(gzipChunks);
+
+        assertEquals(0x1f, gzip[0] & 0xff);
+        assertEquals(0x8b, gzip[1] & 0xff);
+        assertTrue(gzipChunks.size() > 2, "Cada bloque debería entregarse en su propio buffer");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertEquals(new String(plain, StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void gzipExportWithNoRowsStillHasHeaderAndTrailer() throws IOException {
+        byte[] gzip = concat(encode(Flux.empty(), 500, true));
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertEquals("id,box_code,monthly_fee,created_at\r\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void cancellingAGzipExportDoesNotFail() {
+        Flux<Object[]> rows = Flux.range(0, 1_000).map(i -> new Object[]{(long) i, "CA-" + i, null, null});
+
+        List<DataBuffer> first = CsvDataBufferEncoder.encode(bufferFactory, HEADER, rows, 10, true)
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(2, first.size());
+        first.forEach(DataBufferUtils::release);
+    }
+
+    private List<byte[]> encode(Flux<Object[]> rows, int rowsPerBuffer, boolean gzip) {
+        return CsvDataBufferEncoder.encode(bufferFactory, HEADER, rows, rowsPerBuffer, gzip)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .collectList()
+                .block(Duration.ofSeconds(30));
+    }
+
+    private static byte[] concat(List<byte[]> chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunks.forEach(out::writeBytes);
+        return out.toByteArray();
+    }
+}
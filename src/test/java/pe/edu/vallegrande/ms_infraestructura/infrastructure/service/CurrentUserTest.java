@@ -0,0 +1,45 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CurrentUserTest {
+
+    private static final String ORGANIZATION_CLAIM = "organization_id";
+
+    @Test
+    void scopeIsTheTokenOrganization() {
+        CurrentUser admin = user("org-1", "ADMIN");
+        CurrentUser superAdmin = user("org-2", "SUPER_ADMIN");
+
+        assertEquals("org-1", admin.organizationScope());
+        assertEquals("org-2", superAdmin.organizationScope());
+    }
+
+    @Test
+    void onlySuperAdminWithoutOrganizationSeesEveryOrganization() {
+        assertNull(user(null, "SUPER_ADMIN").organizationScope());
+        assertThrows(AccessDeniedException.class, () -> user(null, "ADMIN").organizationScope());
+        assertThrows(AccessDeniedException.class, () -> user(null, "CLIENT").organizationScope());
+    }
+
+    private static CurrentUser user(String organizationId, String role) {
+        Jwt.Builder jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("user-1")
+                .claim("preferred_username", "usuario")
+                .claim("realm_access", Map.of("roles", List.of(role)));
+        if (organizationId != null) {
+            jwt.claim(ORGANIZATION_CLAIM, organizationId);
+        }
+        return CurrentUser.from(jwt.build(), ORGANIZATION_CLAIM);
+    }
+}
@@ -0,0 +1,98 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedSequencerTest {
+
+    private static final int BOXES = 4;
+    private static final int OPERATIONS = 4000;
+
+    private final KeyedSequencer sequencer = new KeyedSequencer();
+
+    @Test
+    void conflictingWritesOnSameBoxRunOneAtATimeAndInOrder() {
+        Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        Map<Long, Integer> counters = new ConcurrentHashMap<>();
+        Map<Long, List<Integer>> executionOrder = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicBoolean overlap = new AtomicBoolean();
+
+        Flux.range(0, OPERATIONS)
+                .flatMap(i -> {
+                    long box = i % BOXES;
+                    // Lectura-modificación-escritura no atómica: solo es correcta si nadie más toca la caja
+                    Mono<Integer> write = Mono.defer(() -> {
+                        if (inFlight.computeIfAbsent(box, k -> new AtomicInteger()).incrementAndGet() > 1) {
+                            overlap.set(true);
+                        }
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        executionOrder.computeIfAbsent(box, k -> new CopyOnWriteArrayList<>()).add(i);
+                        int current = counters.getOrDefault(box, 0);
+                        return Mono.delay(Duration.ofNanos(200_000))
+                                .map(tick -> {
+                                    counters.put(box, current + 1);
+                                    return current + 1;
+                                });
+                    }).doOnTerminate(() -> {
+                        running.decrementAndGet();
+                        inFlight.get(box).decrementAndGet();
+                    });
+                    return sequencer.submit(box, write);
+                }, 1024)
+                .blockLast(Duration.ofSeconds(60));
+
+        assertFalse(overlap.get(), "Dos escrituras de la misma caja se ejecutaron a la vez");
+        assertTrue(maxRunning.get() > 1, "Las cajas distintas deberían ejecutarse en paralelo");
+        for (long box = 0; box < BOXES; box++) {
+            assertEquals(OPERATIONS / BOXES, counters.get(box), "Se perdieron escrituras de la caja " + box);
+            List<Integer> order = executionOrder.get(box);
+            for (int i = 1; i < order.size(); i++) {
+                assertTrue(order.get(i - 1) < order.get(i), "Orden de llegada no respetado en la caja " + box);
+            }
+        }
+        assertEquals(0, sequencer.pending());
+        assertEquals(0, sequencer.activeKeys());
+    }
+
+    @Test
+    void cancelledWaiterDoesNotLetTheNextOneSkipTheQueue() {
+        Sinks.One<String> first = Sinks.one();
+        AtomicBoolean thirdStarted = new AtomicBoolean();
+
+        Disposable running = sequencer.submit(1L, first.asMono()).subscribe();
+        Disposable waiting = sequencer.submit(1L, Mono.just("second")).subscribe();
+        Mono<String> third = sequencer.submit(1L, Mono.fromCallable(() -> {
+            thirdStarted.set(true);
+            return "third";
+        }));
+        Disposable thirdSubscription = third.subscribe();
+
+        assertEquals(3, sequencer.depth(1L));
+        waiting.dispose();
+        assertFalse(thirdStarted.get(), "La tercera operación no debe empezar mientras la primera sigue en curso");
+
+        first.tryEmitValue("first");
+        assertTrue(thirdStarted.get());
+        assertEquals(0, sequencer.depth(1L));
+
+        running.dispose();
+        thirdSubscription.dispose();
+    }
+}
@@ -0,0 +1,82 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.OrganizationSummaryResponse;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository.BoxTotals;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.repository.SummaryQueryRepository.SummaryRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrganizationCountersTest {
+
+    private static final String ORGANIZATION = "org-1";
+
+    private final SummaryQueryRepository repository = mock(SummaryQueryRepository.class);
+    private final OrganizationCounters counters = new OrganizationCounters(repository);
+
+    @Test
+    void deltasAppliedWhileReconcilingSurviveTheSwap() {
+        reconcileWith(Flux.just(assignments(2, 3000)));
+        assertSummary(2, "30.00");
+
+        // La consulta sigue en curso cuando llega una nueva asignación
+        Sinks.Many<SummaryRow> slowQuery = Sinks.many().unicast().onBackpressureBuffer();
+        reconcileWith(slowQuery.asFlux());
+        counters.assignmentActivated(ORGANIZATION, new BigDecimal("10.00"));
+        assertSummary(3, "40.00");
+
+        // La base respondió sin esa asignación: el delta anotado se vuelve a aplicar
+        slowQuery.tryEmitNext(assignments(2, 3000));
+        slowQuery.tryEmitComplete();
+        assertSummary(3, "40.00");
+    }
+
+    @Test
+    void deltasAfterTheSwapAreNotReplayedAgain() {
+        reconcileWith(Flux.just(assignments(2, 3000)));
+        counters.assignmentActivated(ORGANIZATION, new BigDecimal("10.00"));
+
+        reconcileWith(Flux.just(assignments(3, 4000)));
+        assertSummary(3, "40.00");
+
+        reconcileWith(Flux.just(assignments(3, 4000)));
+        assertSummary(3, "40.00");
+    }
+
+    @Test
+    void aBoxChangingOrganizationTakesItsAssignmentsAndTransfers() {
+        reconcileWith(Flux.just(assignments(2, 3000), new SummaryRow(ORGANIZATION, "TRANSFER", null, null, 1, 0)));
+
+        counters.boxMoved(ORGANIZATION, "org-2", new BoxTotals(1, 1200, 1));
+
+        assertSummary(1, "18.00");
+        assertEquals(0, counters.snapshot(ORGANIZATION).getTransfersThisMonth());
+        OrganizationSummaryResponse moved = counters.snapshot("org-2");
+        assertEquals(1, moved.getActiveAssignments());
+        assertEquals(new BigDecimal("12.00"), moved.getTotalMonthlyFees());
+        assertEquals(1, moved.getTransfersThisMonth());
+    }
+
+    private void reconcileWith(Flux<SummaryRow> rows) {
+        when(repository.aggregate(any())).thenReturn(rows);
+        counters.reconcile();
+    }
+
+    private void assertSummary(long activeAssignments, String totalMonthlyFees) {
+        OrganizationSummaryResponse summary = counters.snapshot(ORGANIZATION);
+        assertEquals(activeAssignments, summary.getActiveAssignments());
+        assertEquals(new BigDecimal(totalMonthlyFees), summary.getTotalMonthlyFees());
+    }
+
+    private static SummaryRow assignments(long total, long feeCents) {
+        return new SummaryRow(ORGANIZATION, "ASSIGNMENT", null, null, total, feeCents);
+    }
+}
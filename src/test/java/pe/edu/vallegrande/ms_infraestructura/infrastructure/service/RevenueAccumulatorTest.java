@@ -0,0 +1,83 @@
+package pe.edu.vallegrande.ms_infraestructura.infrastructure.service;
+
+import org.junit.jupiter.api.Test;
+import pe.edu.vallegrande.ms_infraestructura.infrastructure.dto.response.RevenueReportRow;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RevenueAccumulatorTest {
+
+    private static final YearMonth FROM = YearMonth.of(2024, 1);
+    private static final YearMonth TO = YearMonth.of(2024, 12);
+    private static final YearMonth CURRENT = YearMonth.of(2024, 6);
+
+    @Test
+    void countsEveryOverlappingMonthAndSplitsActualFromProjected() {
+        RevenueAccumulator accumulator = new RevenueAccumulator(FROM, TO, CURRENT)
+                // Vigente desde antes del rango y sin fin: 12 meses, 6 ya transcurridos
+                .add("org-1", "CAÑO", 1_000, LocalDateTime.of(2023, 5, 10, 0, 0), null)
+                // Marzo a mayo de 2024: 3 meses, todos transcurridos
+                .add("org-1", "CAÑO", 2_550, LocalDateTime.of(2024, 3, 15, 0, 0), LocalDateTime.of(2024, 5, 2, 0, 0))
+                // Terminó antes del rango: no aporta
+                .add("org-1", "CAÑO", 9_999, LocalDateTime.of(2022, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 0, 0));
+
+        RevenueReportRow row = accumulator.toRows().get(0);
+        assertEquals(new BigDecimal("136.50"), row.getActual());
+        assertEquals(new BigDecimal("196.50"), row.getProjected());
+        assertEquals(2, row.getAssignments());
+    }
+
+    @Test
+    void parallelMergeMatchesSequentialBigDecimalSum() {
+        List<Object[]> rows = syntheticRows(200_000);
+
+        RevenueAccumulator parallel = Flux.fromIterable(rows)
+                .buffer(1_000)
+                .parallel(4, 1)
+                .runOn(Schedulers.parallel(), 1)
+                .reduce(() -> new RevenueAccumulator(FROM, TO, CURRENT), (accumulator, chunk) -> {
+                    chunk.forEach(row -> accumulator.add((String) row[0], (String) row[1], (long) row[2],
+                            (LocalDateTime) row[3], (LocalDateTime) row[4]));
+                    return accumulator;
+                })
+                .reduce(RevenueAccumulator::merge)
+                .block(Duration.ofSeconds(30));
+
+        BigDecimal projected = BigDecimal.ZERO;
+        for (Object[] row : rows) {
+            YearMonth start = YearMonth.from((LocalDateTime) row[3]);
+            YearMonth end = row[4] == null ? TO : YearMonth.from((LocalDateTime) row[4]);
+            YearMonth first = start.isBefore(FROM) ? FROM : start;
+            YearMonth last = end.isAfter(TO) ? TO : end;
+            if (!first.isAfter(last)) {
+                long months = ChronoUnit.MONTHS.between(first, last) + 1;
+                projected = projected.add(BigDecimal.valueOf((long) row[2], 2).multiply(BigDecimal.valueOf(months)));
+            }
+        }
+        assertEquals(projected, BigDecimal.valueOf(parallel.totalProjectedCents(), 2));
+    }
+
+    private static List<Object[]> syntheticRows(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] types = {"CAÑO", "BOMBA", "OTRO"};
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0).plusDays(random.nextInt(2000));
+                    LocalDateTime end = random.nextBoolean() ? null : start.plusDays(random.nextInt(900));
+                    return new Object[]{"org-" + random.nextInt(20), types[random.nextInt(types.length)],
+                            (long) random.nextInt(1, 20_000), start, end};
+                })
+                .toList();
+    }
+}